@@ -8,6 +8,7 @@ import com.opensymphony.xwork.config.entities.ActionConfig;
 import com.opensymphony.xwork.config.entities.ResultConfig;
 import com.opensymphony.xwork.config.entities.InterceptorMapping;
 import com.opensymphony.xwork.interceptor.PreResultListener;
+import com.opensymphony.xwork.util.BoundedCache;
 import com.opensymphony.xwork.util.OgnlValueStack;
 import com.opensymphony.xwork.util.XWorkContinuationConfig;
 import com.uwyn.rife.continuations.ContinuableObject;
@@ -44,18 +45,32 @@ public class DefaultActionInvocation implements ActionInvocation {
 
     private static final Log LOG = LogFactory.getLog(DefaultActionInvocation.class);
 
+    /**
+     * Resolved action methods keyed by action class and method name, {@link #NO_METHOD} if neither the method
+     * nor its doXxx variant exists.
+     */
+    private static final BoundedCache actionMethods = new BoundedCache(1000);
+    private static final Object NO_METHOD = new Object();
+
     protected Object action;
     protected ActionProxy proxy;
     protected List preResultListeners;
     protected Map extraContext;
     protected ActionContext invocationContext;
-    protected Iterator interceptors;
+    protected InterceptorMapping[] interceptorPlan;
+    protected int interceptorIndex;
     protected OgnlValueStack stack;
     protected Result result;
     protected String resultCode;
     protected boolean executed = false;
     protected boolean pushAction = true;
 
+    /**
+     * The stack this invocation created itself, which it may clear and use again once released to a
+     * {@link DefaultActionProxyFactory}, unlike a stack passed in the extra context.
+     */
+    private OgnlValueStack ownStack;
+
     protected DefaultActionInvocation(ActionProxy proxy) throws Exception {
         this(proxy, null);
     }
@@ -151,22 +166,7 @@ public class DefaultActionInvocation implements ActionInvocation {
     }
 
     public Result createResult() throws Exception {
-
-        ActionConfig config = proxy.getConfig();
-        Map results = config.getResults();
-
-        ResultConfig resultConfig = null;
-
-        synchronized (config) {
-            try {
-                resultConfig = (ResultConfig) results.get(resultCode);
-            } catch (NullPointerException e) {
-            }
-            if (resultConfig == null ) {
-                // If no result is found for the given resultCode, try to get a wildcard '*' match.
-                resultConfig = (ResultConfig) results.get("*");
-            }
-        }
+        ResultConfig resultConfig = proxy.getConfig().getResultConfig(resultCode);
 
         if (resultConfig != null) {
             try {
@@ -185,8 +185,8 @@ public class DefaultActionInvocation implements ActionInvocation {
             throw new IllegalStateException("Action has already executed");
         }
 
-        if (interceptors.hasNext()) {
-            InterceptorMapping interceptor = (InterceptorMapping) interceptors.next();
+        if (interceptorIndex < interceptorPlan.length) {
+            InterceptorMapping interceptor = interceptorPlan[interceptorIndex++];
             resultCode = interceptor.getInterceptor().intercept(this);
         } else {
             resultCode = invokeActionOnly();
@@ -284,9 +284,13 @@ public class DefaultActionInvocation implements ActionInvocation {
 
             contextMap = stack.getContext();
         } else {
-            // create the value stack
+            // create the value stack, or reuse the one of a recycled invocation
             // this also adds the ValueStack to its context
-            stack = new OgnlValueStack();
+            if (ownStack == null) {
+                ownStack = new OgnlValueStack();
+            }
+
+            stack = ownStack;
 
             // create the action context
             contextMap = stack.getContext();
@@ -325,12 +329,53 @@ public class DefaultActionInvocation implements ActionInvocation {
             stack.push(action);
         }
 
-        invocationContext = new ActionContext(contextMap);
+        if ((invocationContext == null) || (invocationContext.getContextMap() != contextMap)) {
+            invocationContext = new ActionContext(contextMap);
+        }
+
         invocationContext.setName(proxy.getActionName());
 
-        // get a new List so we don't get problems with the iterator if someone changes the list
-        List interceptorList = new ArrayList(proxy.getConfig().getInterceptors());
-        interceptors = interceptorList.iterator();
+        // the plan is an array snapshot, so changes to the interceptor list do not affect this invocation
+        interceptorPlan = proxy.getConfig().getInterceptorPlan();
+        interceptorIndex = 0;
+    }
+
+    /**
+     * Prepares an invocation released to a {@link DefaultActionProxyFactory} for another request, as the constructor
+     * would, but reusing the value stack, action context and listener list this invocation created.
+     */
+    void recycle(ActionProxy proxy, Map extraContext, boolean pushAction) throws Exception {
+        this.proxy = proxy;
+        this.extraContext = extraContext;
+        this.pushAction = pushAction;
+        init();
+    }
+
+    /**
+     * Drops everything this invocation refers to once it is released to a {@link DefaultActionProxyFactory}, so that
+     * a pooled invocation does not keep the action, result or request objects of the last request alive.
+     */
+    void release() {
+        action = null;
+        proxy = null;
+        extraContext = null;
+        result = null;
+        resultCode = null;
+        executed = false;
+        interceptorPlan = null;
+        interceptorIndex = 0;
+
+        if (preResultListeners != null) {
+            preResultListeners.clear();
+        }
+
+        if ((ownStack != null) && (stack == ownStack)) {
+            ownStack.clear();
+        } else {
+            invocationContext = null;
+        }
+
+        stack = null;
     }
 
     protected String invokeAction(Object action, ActionConfig actionConfig) throws Exception {
@@ -341,25 +386,15 @@ public class DefaultActionInvocation implements ActionInvocation {
         }
 
         try {
-            Method method;
-            try {
-                method = getAction().getClass().getMethod(methodName, new Class[0]);
-            } catch (NoSuchMethodException e) {
-                // hmm -- OK, try doXxx instead
-                try {
-                    String altMethodName = "do" + methodName.substring(0, 1).toUpperCase() + methodName.substring(1);
-                    method = getAction().getClass().getMethod(altMethodName, new Class[0]);
-                } catch (NoSuchMethodException e1) {
-                    // throw the original one
-                    throw e;
-                }
+            Method method = getActionMethod(getAction().getClass(), methodName);
+
+            if (method == null) {
+                throw new IllegalArgumentException("Neither " + methodName + "() nor do" +
+                        methodName.substring(0, 1).toUpperCase() + methodName.substring(1) +
+                        "() is found in action " + getAction().getClass());
             }
 
             return (String) method.invoke(action, new Object[0]);
-        } catch (NoSuchMethodException e) {
-            throw new IllegalArgumentException("Neither " + methodName + "() nor do" + 
-            		methodName.substring(0, 1).toUpperCase() + methodName.substring(1) + 
-            		"() is found in action " + getAction().getClass());
         } catch (InvocationTargetException e) {
             // We try to return the source exception.
             Throwable t = e.getTargetException();
@@ -380,4 +415,59 @@ public class DefaultActionInvocation implements ActionInvocation {
             }
         }
     }
+
+    /**
+     * Returns the public no-argument method <code>methodName</code> of <code>actionClass</code>, or its doXxx
+     * variant if there is no such method. Lookups are cached, including those that found nothing.
+     *
+     * @param actionClass the action class
+     * @param methodName  the name of the action method
+     * @return the action method or <tt>null</tt> if neither the method nor its doXxx variant exists
+     */
+    protected static Method getActionMethod(Class actionClass, String methodName) {
+        ActionMethodKey key = new ActionMethodKey(actionClass, methodName);
+        Object method = actionMethods.get(key);
+
+        if (method == null) {
+            try {
+                method = actionClass.getMethod(methodName, new Class[0]);
+            } catch (NoSuchMethodException e) {
+                // hmm -- OK, try doXxx instead
+                try {
+                    String altMethodName = "do" + methodName.substring(0, 1).toUpperCase() + methodName.substring(1);
+                    method = actionClass.getMethod(altMethodName, new Class[0]);
+                } catch (NoSuchMethodException e1) {
+                    method = NO_METHOD;
+                }
+            }
+            actionMethods.put(key, method);
+        }
+
+        return (method == NO_METHOD) ? null : (Method) method;
+    }
+
+
+    private static class ActionMethodKey {
+        private final Class actionClass;
+        private final String methodName;
+
+        ActionMethodKey(Class actionClass, String methodName) {
+            this.actionClass = actionClass;
+            this.methodName = methodName;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ActionMethodKey)) {
+                return false;
+            }
+
+            ActionMethodKey other = (ActionMethodKey) obj;
+
+            return (actionClass == other.actionClass) && methodName.equals(other.methodName);
+        }
+
+        public int hashCode() {
+            return 31 * actionClass.hashCode() + methodName.hashCode();
+        }
+    }
 }
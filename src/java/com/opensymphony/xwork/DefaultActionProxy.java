@@ -14,6 +14,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.Serializable;
+import java.lang.ref.Reference;
 import java.util.Locale;
 import java.util.Map;
 
@@ -41,6 +42,11 @@ public class DefaultActionProxy implements ActionProxy, Serializable {
     protected boolean executeResult;
     protected boolean cleanupContext;
 
+    /**
+     * Set while a recycling {@link DefaultActionProxyFactory} in dev mode waits for this proxy to be released.
+     */
+    transient Reference leakReference;
+
     /**
      * This constructor is private so the builder methods (create*) should be used to create an DefaultActionProxy.
      * <p/>
@@ -48,6 +54,10 @@ public class DefaultActionProxy implements ActionProxy, Serializable {
      * (like a RMIActionProxy).
      */
     protected DefaultActionProxy(String namespace, String actionName, Map extraContext, boolean executeResult, boolean cleanupContext) throws Exception {
+        init(namespace, actionName, extraContext, executeResult, cleanupContext);
+    }
+
+    private void init(String namespace, String actionName, Map extraContext, boolean executeResult, boolean cleanupContext) throws Exception {
         this.cleanupContext = cleanupContext;
         if (LOG.isDebugEnabled()) {
             LOG.debug("Creating an DefaultActionProxy for namespace " + namespace + " and action name " + actionName);
@@ -79,6 +89,25 @@ public class DefaultActionProxy implements ActionProxy, Serializable {
         prepare();
     }
 
+    /**
+     * Prepares a proxy released to a {@link DefaultActionProxyFactory} for another request, as the constructor would.
+     */
+    void recycle(String namespace, String actionName, Map extraContext, boolean executeResult, boolean cleanupContext) throws Exception {
+        init(namespace, actionName, extraContext, executeResult, cleanupContext);
+    }
+
+    /**
+     * Drops everything this proxy refers to once it is released to a {@link DefaultActionProxyFactory}.
+     */
+    void release() {
+        config = null;
+        invocation = null;
+        extraContext = null;
+        actionName = null;
+        namespace = null;
+        method = null;
+    }
+
     public Object getAction() {
         return invocation.getAction();
     }
@@ -4,31 +4,119 @@
  */
 package com.opensymphony.xwork;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 
 /**
  * DefaultActionProxyFactory
+ * <p/>
+ * With {@link #setRecycling(boolean) recycling} on, proxies and invocations released with
+ * {@link #release(ActionProxy)} are kept in a small pool per thread and reused by the next requests on that thread,
+ * together with the value stack, context map, action context and pre-result listener list of the invocation. Actions
+ * are never reused, a new one is built for every request. Only proxies created with <tt>cleanupContext</tt> and of
+ * exactly the default classes are pooled; proxies that are never released are simply garbage collected.
+ * <p/>
+ * The pooled objects belong to the classes of the application, so the pools must not outlive it: whatever turns
+ * recycling on, typically the dispatcher, must call {@link #drain()} or turn recycling off when the application is
+ * stopped. Either empties the pools of all threads. A thread only refers to its pool weakly, so an emptied pool does
+ * not keep the application's class loader reachable from the container's threads.
+ * <p/>
+ * In dev mode ({@link ActionContext#DEV_MODE} set in the extra context) every pooled proxy handed out is tracked until
+ * it is released, and a warning with the stack trace of its creation is logged for those that were garbage collected
+ * without being released.
  *
  * @author Jason Carreira
  *         Created Jun 15, 2003 5:19:13 PM
  */
 public class DefaultActionProxyFactory extends ActionProxyFactory {
 
+    private static final Log LOG = LogFactory.getLog(DefaultActionProxyFactory.class);
+
+    /**
+     * The number of proxies, and of invocations, each thread keeps for reuse, enough for a few chained actions.
+     */
+    private static final int POOL_SIZE = 4;
+
+    // a weak reference per thread, the pools themselves are only held by poolsByThread
+    private final ThreadLocal pools = new ThreadLocal();
+    private final Map poolsByThread = Collections.synchronizedMap(new WeakHashMap());
+    private final ReferenceQueue leakQueue = new ReferenceQueue();
+    private final Set leakReferences = Collections.synchronizedSet(new HashSet());
+    private volatile boolean recycling;
+
     public DefaultActionProxyFactory() {
         super();
     }
 
 
+    /**
+     * Turns the pooling of released proxies and invocations on or off. It is off by default. Turning it off
+     * {@link #drain() drains} the pools.
+     *
+     * @param recycling true to reuse the proxies and invocations passed to {@link #release(ActionProxy)}
+     */
+    public void setRecycling(boolean recycling) {
+        this.recycling = recycling;
+
+        if (!recycling) {
+            drain();
+        }
+    }
+
+    /**
+     * Empties the pools of all threads and stops tracking the proxies handed out in dev mode. Recycling, if on, goes
+     * on with new pools. This must be called when the application is stopped, see the class description.
+     */
+    public void drain() {
+        Pool[] drained;
+
+        synchronized (poolsByThread) {
+            drained = (Pool[]) poolsByThread.values().toArray(new Pool[poolsByThread.size()]);
+            poolsByThread.clear();
+        }
+
+        for (int i = 0; i < drained.length; i++) {
+            drained[i].drain();
+        }
+
+        pools.remove();
+        leakReferences.clear();
+    }
+
+    public boolean isRecycling() {
+        return recycling;
+    }
+
     public ActionInvocation createActionInvocation(ActionProxy actionProxy) throws Exception {
+        if (recycling) {
+            return createRecycledInvocation(actionProxy, null, true);
+        }
+
         return new DefaultActionInvocation(actionProxy);
     }
 
     public ActionInvocation createActionInvocation(ActionProxy actionProxy, Map extraContext) throws Exception {
+        if (recycling) {
+            return createRecycledInvocation(actionProxy, extraContext, true);
+        }
+
         return new DefaultActionInvocation(actionProxy, extraContext);
     }
 
     public ActionInvocation createActionInvocation(ActionProxy actionProxy, Map extraContext, boolean pushAction) throws Exception {
+        if (recycling) {
+            return createRecycledInvocation(actionProxy, extraContext, pushAction);
+        }
+
         return new DefaultActionInvocation(actionProxy, extraContext, pushAction);
     }
 
@@ -36,13 +124,199 @@ public class DefaultActionProxyFactory extends ActionProxyFactory {
      * Use this method to build an DefaultActionProxy instance.
      */
     public ActionProxy createActionProxy(String namespace, String actionName, Map extraContext) throws Exception {
-        return new DefaultActionProxy(namespace, actionName, extraContext, true, true);
+        return createActionProxy(namespace, actionName, extraContext, true, true);
     }
 
     /**
      * Use this method to build an DefaultActionProxy instance.
      */
     public ActionProxy createActionProxy(String namespace, String actionName, Map extraContext, boolean executeResult, boolean cleanupContext) throws Exception {
-        return new DefaultActionProxy(namespace, actionName, extraContext, executeResult, cleanupContext);
+        if (!recycling || !cleanupContext) {
+            return new DefaultActionProxy(namespace, actionName, extraContext, executeResult, cleanupContext);
+        }
+
+        reportLeaks();
+
+        DefaultActionProxy proxy = getPool().takeProxy();
+
+        if (proxy == null) {
+            proxy = new DefaultActionProxy(namespace, actionName, extraContext, executeResult, cleanupContext);
+        } else {
+            proxy.recycle(namespace, actionName, extraContext, executeResult, cleanupContext);
+        }
+
+        if ((extraContext != null) && Boolean.TRUE.equals(extraContext.get(ActionContext.DEV_MODE))) {
+            LeakReference reference = new LeakReference(proxy, leakQueue);
+            leakReferences.add(reference);
+            proxy.leakReference = reference;
+        }
+
+        return proxy;
+    }
+
+    /**
+     * Returns a proxy created by this factory to the pool of the current thread, together with its invocation and the
+     * proxies of the actions it chained to. The proxy, its invocation and their value stack and action context must no
+     * longer be used once released, only the action may. Does nothing unless recycling is on.
+     *
+     * @param proxy the proxy of a request that is done
+     */
+    public void release(ActionProxy proxy) {
+        if (!recycling || (proxy == null) || (proxy.getClass() != DefaultActionProxy.class)) {
+            return;
+        }
+
+        DefaultActionProxy defaultProxy = (DefaultActionProxy) proxy;
+        ActionInvocation invocation = defaultProxy.getInvocation();
+
+        if (!defaultProxy.cleanupContext || (invocation == null)) {
+            // not handed out by the pool, or released already
+            return;
+        }
+
+        if (defaultProxy.leakReference != null) {
+            leakReferences.remove(defaultProxy.leakReference);
+            defaultProxy.leakReference.clear();
+            defaultProxy.leakReference = null;
+        }
+
+        Pool pool = getPool();
+
+        if (invocation.getClass() == DefaultActionInvocation.class) {
+            DefaultActionInvocation defaultInvocation = (DefaultActionInvocation) invocation;
+
+            if (defaultInvocation.result instanceof ActionChainResult) {
+                release(((ActionChainResult) defaultInvocation.result).getProxy());
+            }
+
+            // an invocation whose context is still the current one would be cleared under its caller's feet
+            if (ActionContext.actionContext.get() != defaultInvocation.getInvocationContext()) {
+                defaultInvocation.release();
+                pool.offerInvocation(defaultInvocation);
+            }
+        }
+
+        defaultProxy.release();
+        pool.offerProxy(defaultProxy);
+    }
+
+    private ActionInvocation createRecycledInvocation(ActionProxy actionProxy, Map extraContext, boolean pushAction) throws Exception {
+        DefaultActionInvocation invocation = getPool().takeInvocation();
+
+        if (invocation == null) {
+            return new DefaultActionInvocation(actionProxy, extraContext, pushAction);
+        }
+
+        invocation.recycle(actionProxy, extraContext, pushAction);
+
+        return invocation;
+    }
+
+    private Pool getPool() {
+        WeakReference reference = (WeakReference) pools.get();
+        Pool pool = (reference == null) ? null : (Pool) reference.get();
+
+        if ((pool == null) || pool.isDrained()) {
+            pool = new Pool();
+            poolsByThread.put(Thread.currentThread(), pool);
+            pools.set(new WeakReference(pool));
+        }
+
+        return pool;
+    }
+
+    /**
+     * Logs the proxies handed out in dev mode that were garbage collected without being released.
+     */
+    private void reportLeaks() {
+        LeakReference reference = (LeakReference) leakQueue.poll();
+
+        while (reference != null) {
+            if (leakReferences.remove(reference)) {
+                LOG.warn("An action proxy was never released to the factory that created it", reference.creation);
+            }
+
+            reference = (LeakReference) leakQueue.poll();
+        }
+    }
+
+
+    /**
+     * The proxies and invocations released on a thread. Only its thread uses it, except for {@link #drain()}, so its
+     * lock is never contended.
+     */
+    private static class Pool {
+        private final DefaultActionProxy[] proxies = new DefaultActionProxy[POOL_SIZE];
+        private final DefaultActionInvocation[] invocations = new DefaultActionInvocation[POOL_SIZE];
+        private int proxyCount;
+        private int invocationCount;
+        private boolean drained;
+
+        synchronized DefaultActionProxy takeProxy() {
+            if (proxyCount == 0) {
+                return null;
+            }
+
+            DefaultActionProxy proxy = proxies[--proxyCount];
+            proxies[proxyCount] = null;
+
+            return proxy;
+        }
+
+        synchronized void offerProxy(DefaultActionProxy proxy) {
+            if (!drained && (proxyCount < POOL_SIZE)) {
+                proxies[proxyCount++] = proxy;
+            }
+        }
+
+        synchronized DefaultActionInvocation takeInvocation() {
+            if (invocationCount == 0) {
+                return null;
+            }
+
+            DefaultActionInvocation invocation = invocations[--invocationCount];
+            invocations[invocationCount] = null;
+
+            return invocation;
+        }
+
+        synchronized void offerInvocation(DefaultActionInvocation invocation) {
+            if (!drained && (invocationCount < POOL_SIZE)) {
+                invocations[invocationCount++] = invocation;
+            }
+        }
+
+        synchronized boolean isDrained() {
+            return drained;
+        }
+
+        /**
+         * Empties the pool for good, nothing offered afterwards is kept.
+         */
+        synchronized void drain() {
+            drained = true;
+
+            for (int i = 0; i < POOL_SIZE; i++) {
+                proxies[i] = null;
+                invocations[i] = null;
+            }
+
+            proxyCount = 0;
+            invocationCount = 0;
+        }
+    }
+
+
+    /**
+     * Tracks a proxy handed out in dev mode, remembering where it was created.
+     */
+    private static class LeakReference extends WeakReference {
+        private final Throwable creation;
+
+        LeakReference(DefaultActionProxy proxy, ReferenceQueue queue) {
+            super(proxy, queue);
+            creation = new Throwable("Action proxy for action " + proxy.getActionName() + " in namespace "
+                    + proxy.getNamespace() + " created");
+        }
     }
 }
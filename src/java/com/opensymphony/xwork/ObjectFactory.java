@@ -10,6 +10,7 @@ import com.opensymphony.xwork.config.entities.ActionConfig;
 import com.opensymphony.xwork.config.entities.InterceptorConfig;
 import com.opensymphony.xwork.config.entities.ResultConfig;
 import com.opensymphony.xwork.interceptor.Interceptor;
+import com.opensymphony.xwork.util.BoundedCache;
 import com.opensymphony.xwork.util.OgnlUtil;
 import com.opensymphony.xwork.util.XWorkContinuationConfig;
 import com.opensymphony.xwork.validator.Validator;
@@ -41,6 +42,12 @@ public class ObjectFactory {
     private static ObjectFactory FACTORY = new ObjectFactory();
     private static String continuationPackage;
 
+    /**
+     * Classes loaded by {@link #getClassInstance(String)}, keyed by class name, as results and actions are built by
+     * name for every request.
+     */
+    private final BoundedCache classes = new BoundedCache(1000);
+
     public static void setContinuationPackage(String continuationPackage) {
         ContinuationConfig.setInstance(new XWorkContinuationConfig());
         ObjectFactory.continuationPackage = continuationPackage;
@@ -85,7 +92,16 @@ public class ObjectFactory {
             return ccl.loadClass(className);
         }
 
-        return ClassLoaderUtil.loadClass(className, this.getClass());
+        // the context class loader is looked at first, so a class is only reused for the loader it was loaded with
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        LoadedClass loaded = (LoadedClass) classes.get(className);
+
+        if ((loaded == null) || (loaded.contextClassLoader != contextClassLoader)) {
+            loaded = new LoadedClass(contextClassLoader, ClassLoaderUtil.loadClass(className, this.getClass()));
+            classes.put(className, loaded);
+        }
+
+        return loaded.clazz;
     }
 
     /**
@@ -203,6 +219,19 @@ public class ObjectFactory {
         return validator;
     }
 
+    /**
+     * A class loaded by {@link #getClassInstance(String)}, along with the context class loader of the lookup.
+     */
+    private static class LoadedClass {
+        final ClassLoader contextClassLoader;
+        final Class clazz;
+
+        LoadedClass(ClassLoader contextClassLoader, Class clazz) {
+            this.contextClassLoader = contextClassLoader;
+            this.clazz = clazz;
+        }
+    }
+
     static class ContinuationsClassLoader extends ClassLoader {
         private String base;
         private ClassLoader parent;
@@ -29,4 +29,17 @@ public class XWorkConstants {
      * </pre>
      */
     public static final String XWORK_USE_OGNL_ENHANCEMENT = "useOgnlEnhancement";
+
+    /**
+     * Parameter name of the maximum number of parsed OGNL expressions cached by
+     * {@link com.opensymphony.xwork.util.OgnlUtil}. eg.
+     * <pre>
+     *  &lt;xwork&gt;
+     *       &lt;parameters&gt;
+     *          &lt;parameter name="ognlExpressionCacheMaxSize" value="10000" /&gt;
+     *       &lt;/parameters&gt;
+     *    &lt;/xwork&gt;
+     * </pre>
+     */
+    public static final String XWORK_OGNL_EXPRESSION_CACHE_MAX_SIZE = "ognlExpressionCacheMaxSize";
 }
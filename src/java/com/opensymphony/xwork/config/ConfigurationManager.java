@@ -31,8 +31,10 @@ import java.util.Map;
 public class ConfigurationManager {
 
     protected static final Log LOG = LogFactory.getLog(ConfigurationManager.class);
-    protected static Configuration configurationInstance;
+    protected static volatile Configuration configurationInstance;
+    private static Configuration loadingConfiguration;
     private static List configurationProviders = new ArrayList();
+    private static volatile ConfigurationWatcher configurationWatcher;
 
     
     private ConfigurationManager() {
@@ -45,23 +47,82 @@ public class ConfigurationManager {
 
     /**
      * Get the current XWork configuration object.  By default an instance of DefaultConfiguration will be returned
+     * <p/>
+     * Once the configuration has been loaded this does not lock, only the first load is done under the
+     * ConfigurationManager's lock. Other threads wait for that load to complete, while the loading thread itself
+     * gets the configuration being loaded should it ask for it again.
+     * <p/>
+     * When configurations are reloading the files are not checked here, a {@link ConfigurationWatcher} is started
+     * instead that checks them from a background thread.
      *
      * @see com.opensymphony.xwork.config.impl.DefaultConfiguration
      */
-    public static synchronized Configuration getConfiguration() {
-        if (configurationInstance == null) {
-            configurationInstance = new DefaultConfiguration();
+    public static Configuration getConfiguration() {
+        Configuration configuration = configurationInstance;
+
+        if (configuration != null) {
+            if (configurationWatcher == null && FileManager.isReloadingConfigs()) {
+                getConfigurationWatcher();
+            }
+            return configuration;
+        }
+
+        synchronized (ConfigurationManager.class) {
+            if (configurationInstance != null) {
+                return configurationInstance;
+            }
+            if (loadingConfiguration != null) {
+                // we are being called back while loading the configuration
+                return loadingConfiguration;
+            }
+
+            configuration = new DefaultConfiguration();
+            loadingConfiguration = configuration;
             try {
-                configurationInstance.reload();
-            } catch (ConfigurationException e) {
-                configurationInstance = null;
-                throw e;
+                configuration.reload();
+                configurationInstance = configuration;
+            } finally {
+                loadingConfiguration = null;
             }
-        } else {
-            conditionalReload();
+
+            return configuration;
         }
+    }
+
+    /**
+     * Returns the watcher checking the configuration files for changes. If configurations are reloading and no
+     * watcher has been set, a {@link ConfigurationWatcher} with the default intervals is started.
+     *
+     * @return the watcher or <tt>null</tt> if configurations are not reloading and no watcher has been set
+     */
+    public static ConfigurationWatcher getConfigurationWatcher() {
+        ConfigurationWatcher watcher = configurationWatcher;
 
-        return configurationInstance;
+        if (watcher == null && FileManager.isReloadingConfigs()) {
+            synchronized (ConfigurationManager.class) {
+                if (configurationWatcher == null) {
+                    ConfigurationWatcher newWatcher = new ConfigurationWatcher();
+                    newWatcher.start();
+                    configurationWatcher = newWatcher;
+                }
+                watcher = configurationWatcher;
+            }
+        }
+
+        return watcher;
+    }
+
+    /**
+     * Replaces the watcher checking the configuration files for changes, stopping the previous one. The given
+     * watcher is used as is, it is up to the caller to start it.
+     *
+     * @param watcher the watcher to use, <tt>null</tt> to go back to the default
+     */
+    public static synchronized void setConfigurationWatcher(ConfigurationWatcher watcher) {
+        if (configurationWatcher != null && configurationWatcher != watcher) {
+            configurationWatcher.stop();
+        }
+        configurationWatcher = watcher;
     }
 
     /**
@@ -122,6 +183,8 @@ public class ConfigurationManager {
     }
 
     public static synchronized void destroyConfiguration() {
+        setConfigurationWatcher(null);
+
         synchronized (configurationProviders) {
         	clearConfigurationProviders(); // let's destroy the ConfigurationProvider first
             configurationProviders = new ArrayList();
@@ -174,37 +237,37 @@ public class ConfigurationManager {
     }
 
     /**
-     * reloads the Configuration files if the configuration files indicate that they need to be reloaded.
+     * reloads the Configuration files if the configuration files indicate that they need to be reloaded. This is
+     * called by the {@link ConfigurationWatcher}.
      *
      * <B>NOTE:</b> FileManager could be configured through webwork.properties through
      * webwork.configuration.xml.reload  property.
      */
-    private static synchronized void conditionalReload() {
-        if (FileManager.isReloadingConfigs()) {
-            boolean reload;
-
-            synchronized (configurationProviders) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Checking ConfigurationProviders for reload.");
-                }
-
-                reload = false;
+    static synchronized void conditionalReload() {
+        if (FileManager.isReloadingConfigs() && configurationInstance != null && needsReload()) {
+            configurationInstance.reload();
+        }
+    }
 
-                for (Iterator iterator = getConfigurationProviders().iterator();
-                     iterator.hasNext();) {
-                    ConfigurationProvider provider = (ConfigurationProvider) iterator.next();
+    /**
+     * @return true if any of the ConfigurationProviders needs to be reloaded
+     */
+    static boolean needsReload() {
+        synchronized (configurationProviders) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Checking ConfigurationProviders for reload.");
+            }
 
-                    if (provider.needsReload()) {
-                        reload = true;
+            for (Iterator iterator = getConfigurationProviders().iterator();
+                 iterator.hasNext();) {
+                ConfigurationProvider provider = (ConfigurationProvider) iterator.next();
 
-                        break;
-                    }
+                if (provider.needsReload()) {
+                    return true;
                 }
             }
-
-            if (reload) {
-                configurationInstance.reload();
-            }
         }
+
+        return false;
     }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.config;
+
+import com.opensymphony.util.ClassLoaderUtil;
+import com.opensymphony.util.FileManager;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Watches the configuration files for changes from a background thread, so that reloading configurations
+ * (see {@link FileManager#isReloadingConfigs()}) does not add file system checks to every request.
+ * <p/>
+ * Every poll interval the watcher asks the registered {@link ConfigurationProvider}s whether they need to be
+ * reloaded and checks the files registered through {@link #watch(String, Class, Runnable)}, such as the
+ * <tt>-validation.xml</tt> and <tt>-conversion.properties</tt> files that have been loaded. The watcher keeps the
+ * last modification time it has seen for each of these files, so a callback runs once per change whether or not
+ * the file has been loaded again in between. Once a change is
+ * seen, the watcher waits for the quiet period to pass, so that a burst of saved files results in a single
+ * rebuild, before reloading the configuration and running the callbacks of the changed files.
+ * <p/>
+ * Polling is used as it works on any file system and for files found in exploded class directories alike.
+ *
+ * @version $Date$ $Id$
+ * @see ConfigurationManager#getConfigurationWatcher()
+ */
+public class ConfigurationWatcher implements Runnable {
+
+    private static final Log LOG = LogFactory.getLog(ConfigurationWatcher.class);
+
+    public static final long DEFAULT_POLL_INTERVAL = 2000;
+    public static final long DEFAULT_QUIET_PERIOD = 500;
+
+    private final Map watchedFiles = new ConcurrentHashMap();
+    private final long pollInterval;
+    private final long quietPeriod;
+    private volatile Thread thread;
+
+
+    public ConfigurationWatcher() {
+        this(DEFAULT_POLL_INTERVAL, DEFAULT_QUIET_PERIOD);
+    }
+
+    /**
+     * @param pollInterval the number of milliseconds between two checks for changes
+     * @param quietPeriod  the number of milliseconds to wait after a change is seen before reloading
+     */
+    public ConfigurationWatcher(long pollInterval, long quietPeriod) {
+        this.pollInterval = pollInterval;
+        this.quietPeriod = quietPeriod;
+    }
+
+
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    public long getQuietPeriod() {
+        return quietPeriod;
+    }
+
+    /**
+     * Starts watching on a daemon thread, does nothing if the watcher is already running.
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            Thread watcherThread = new Thread(this, "XWork configuration watcher");
+            watcherThread.setDaemon(true);
+            thread = watcherThread;
+            watcherThread.start();
+        }
+    }
+
+    /**
+     * Stops watching, the thread is left to terminate on its own.
+     */
+    public synchronized void stop() {
+        Thread watcherThread = thread;
+        thread = null;
+
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Registers a file loaded through {@link FileManager#loadFile(String, Class)} to be watched. The callback is
+     * run from the watcher's thread once the file has changed, it is expected to drop whatever was built from the
+     * file so that it is loaded again on next use. Registering a file again replaces its callback and takes its
+     * current modification time as the one last seen.
+     *
+     * @param fileName the name the file was loaded with
+     * @param clazz    the class the file was loaded with
+     * @param onChange the callback to run once the file has changed
+     */
+    public void watch(String fileName, Class clazz, Runnable onChange) {
+        watch(fileName, ClassLoaderUtil.getResource(fileName, clazz), onChange);
+    }
+
+    void watch(String fileName, URL url, Runnable onChange) {
+        watchedFiles.put(fileName, new WatchedFile(url, onChange));
+    }
+
+    /**
+     * Stops watching the given file.
+     *
+     * @param fileName the name the file was registered with
+     */
+    public void unwatch(String fileName) {
+        watchedFiles.remove(fileName);
+    }
+
+    /**
+     * @return true if the configuration or any of the watched files has changed since it was last loaded
+     */
+    public boolean hasChanges() {
+        if (ConfigurationManager.needsReload()) {
+            return true;
+        }
+
+        for (Iterator iterator = watchedFiles.values().iterator(); iterator.hasNext();) {
+            if (((WatchedFile) iterator.next()).hasChanged()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks for changes right away, reloading the configuration if a provider needs it and running the callbacks
+     * of the watched files that have changed. This is what the watcher's thread does once the quiet period is over.
+     */
+    public void checkForChanges() {
+        ConfigurationManager.conditionalReload();
+
+        for (Iterator iterator = watchedFiles.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            String fileName = (String) entry.getKey();
+            WatchedFile watchedFile = (WatchedFile) entry.getValue();
+
+            if (watchedFile.seeChange()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("File " + fileName + " has changed");
+                }
+
+                try {
+                    watchedFile.onChange.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Unable to process the change of " + fileName, e);
+                }
+            }
+        }
+    }
+
+    public void run() {
+        Thread current = Thread.currentThread();
+
+        while (thread == current) {
+            try {
+                Thread.sleep(pollInterval);
+
+                if (FileManager.isReloadingConfigs() && hasChanges()) {
+                    // let a burst of changes settle before rebuilding
+                    Thread.sleep(quietPeriod);
+
+                    if (thread == current) {
+                        checkForChanges();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stop() was called
+            } catch (RuntimeException e) {
+                LOG.error("Unable to reload the configuration", e);
+            }
+        }
+    }
+
+
+    private static long getLastModified(URL url) {
+        if (url == null) {
+            return 0;
+        }
+
+        try {
+            return new File(new URI(url.toExternalForm())).lastModified();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+
+    /**
+     * A watched file, along with the last modification time the watcher has seen.
+     */
+    private static class WatchedFile {
+        final URL url;
+        final Runnable onChange;
+        private long lastModified;
+
+        WatchedFile(URL url, Runnable onChange) {
+            this.url = url;
+            this.onChange = onChange;
+            this.lastModified = getLastModified(url);
+        }
+
+        synchronized boolean hasChanged() {
+            return getLastModified(url) != lastModified;
+        }
+
+        /**
+         * @return true if the file has changed since last seen, the change is then seen
+         */
+        synchronized boolean seeChange() {
+            long current = getLastModified(url);
+
+            if (current == lastModified) {
+                return false;
+            }
+
+            lastModified = current;
+            return true;
+        }
+    }
+}
@@ -28,6 +28,11 @@ import java.util.*;
 public class ActionConfig extends Located implements InterceptorListHolder, Parameterizable, Serializable {
 
 	private static final long serialVersionUID = -6785758611462211920L;
+
+    /**
+     * The name of the result executed for result codes that have no result of their own.
+     */
+    public static final String WILDCARD_RESULT = "*";
 	
 	protected List externalRefs;
     protected List interceptors;	// a list of interceptorMapping Objects eg. List<InterceptorMapping>
@@ -38,6 +43,9 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
     protected String methodName;
     protected String packageName;
 
+    private transient InterceptorMapping[] interceptorPlan;
+    private transient ResultTable resultTable;
+
 
     public ActionConfig() {
         params = new LinkedHashMap();
@@ -107,6 +115,65 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
         return interceptors;
     }
 
+    /**
+     * Returns the interceptors to run for this action in order, as an array the invocation can simply index into.
+     * The array is the snapshot taken by {@link #buildInterceptorPlan()} if it has been built, otherwise a copy of
+     * the current interceptors. It must not be modified.
+     *
+     * @return the interceptors to run, in order
+     */
+    public InterceptorMapping[] getInterceptorPlan() {
+        InterceptorMapping[] plan = interceptorPlan;
+
+        if (plan == null) {
+            List interceptors = getInterceptors();
+            plan = (InterceptorMapping[]) interceptors.toArray(new InterceptorMapping[interceptors.size()]);
+        }
+
+        return plan;
+    }
+
+    /**
+     * Takes a snapshot of the interceptors returned by {@link #getInterceptorPlan()}, so that it no longer needs to be
+     * copied for every invocation. Called by the runtime configuration once this config is fully built, later changes
+     * made through {@link #addInterceptor(InterceptorMapping)} or {@link #addInterceptors(List)} discard it again.
+     */
+    public void buildInterceptorPlan() {
+        List interceptors = getInterceptors();
+        interceptorPlan = (InterceptorMapping[]) interceptors.toArray(new InterceptorMapping[interceptors.size()]);
+    }
+
+    /**
+     * Returns the result config for <code>resultCode</code>, falling back to the wildcard result named
+     * {@link #WILDCARD_RESULT} if there is none. The lookup goes through the table built by {@link #buildResultTable()}
+     * if it has been built, otherwise through the current results.
+     *
+     * @param resultCode the result code returned by the action, may be <tt>null</tt>
+     * @return the result config to execute, <tt>null</tt> if neither the result code nor the wildcard is mapped
+     */
+    public ResultConfig getResultConfig(String resultCode) {
+        ResultTable table = resultTable;
+
+        if (table != null) {
+            return table.get(resultCode);
+        }
+
+        Map results = getResults();
+        ResultConfig resultConfig = (resultCode == null) ? null : (ResultConfig) results.get(resultCode);
+
+        return (resultConfig != null) ? resultConfig : (ResultConfig) results.get(WILDCARD_RESULT);
+    }
+
+    /**
+     * Takes a snapshot of the results for {@link #getResultConfig(String)}, so that looking a result up needs neither
+     * a lock nor a second lookup for the wildcard. Called by the runtime configuration once this config is fully
+     * built, later changes made through {@link #setResults(Map)} or {@link #addResultConfig(ResultConfig)} discard it
+     * again.
+     */
+    public void buildResultTable() {
+        resultTable = new ResultTable(getResults());
+    }
+
     public void setMethodName(String methodName) {
         this.methodName = methodName;
     }
@@ -148,6 +215,7 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
 
     public void setResults(Map results) {
         this.results = results;
+        resultTable = null;
     }
 
     public Map getResults() {
@@ -176,10 +244,12 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
 
     public void addInterceptor(InterceptorMapping interceptor) {
         getInterceptors().add(interceptor);
+        interceptorPlan = null;
     }
 
     public void addInterceptors(List interceptors) {
         getInterceptors().addAll(interceptors);
+        interceptorPlan = null;
     }
 
     public void addParam(String name, Object value) {
@@ -188,6 +258,7 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
 
     public void addResultConfig(ResultConfig resultConfig) {
         getResults().put(resultConfig.getName(), resultConfig);
+        resultTable = null;
     }
 
     public boolean equals(Object o) {
@@ -246,4 +317,24 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
         sb.append("}");
         return sb.toString();
     }
+
+
+    /**
+     * The results of an action looked up by result code, with the wildcard result already resolved.
+     */
+    private static final class ResultTable {
+        private final Map results;
+        private final ResultConfig wildcard;
+
+        ResultTable(Map results) {
+            this.results = new HashMap(results);
+            this.wildcard = (ResultConfig) results.get(WILDCARD_RESULT);
+        }
+
+        ResultConfig get(String resultCode) {
+            ResultConfig resultConfig = (resultCode == null) ? null : (ResultConfig) results.get(resultCode);
+
+            return (resultConfig != null) ? resultConfig : wildcard;
+        }
+    }
 }
@@ -9,6 +9,7 @@ import com.opensymphony.xwork.config.entities.ActionConfig;
 import com.opensymphony.xwork.config.entities.PackageConfig;
 import com.opensymphony.xwork.config.entities.ResultTypeConfig;
 import com.opensymphony.xwork.config.providers.InterceptorBuilder;
+import com.opensymphony.xwork.util.OgnlUtil;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -29,8 +30,12 @@ public class DefaultConfiguration implements Configuration {
 
 
     // Programmatic Action Conifigurations
-    private Map packageContexts = new LinkedHashMap();
-    protected RuntimeConfiguration runtimeConfiguration;
+    private volatile Map packageContexts = new LinkedHashMap();
+    protected volatile RuntimeConfiguration runtimeConfiguration;
+
+    // the packages being loaded by reload(), only seen by the thread reloading until they are published
+    private Map loadingPackageContexts;
+    private volatile Thread reloadingThread;
 
     private Map parameters = new LinkedHashMap();
 
@@ -81,7 +86,7 @@ public class DefaultConfiguration implements Configuration {
      * @return {@link com.opensymphony.xwork.config.entities.PackageConfig}
      */
     public PackageConfig getPackageConfig(String name) {
-        return (PackageConfig) packageContexts.get(name);
+        return (PackageConfig) packages().get(name);
     }
 
     /**
@@ -89,7 +94,7 @@ public class DefaultConfiguration implements Configuration {
      * @return Set
      */
     public Set getPackageConfigNames() {
-        return packageContexts.keySet();
+        return packages().keySet();
     }
 
     /**
@@ -99,12 +104,22 @@ public class DefaultConfiguration implements Configuration {
      * @return Map
      */
     public Map getPackageConfigs() {
-        return packageContexts;
+        return packages();
+    }
+
+    /**
+     * Returns the packages being loaded to the thread running {@link #reload()}, the published packages to any other.
+     */
+    private Map packages() {
+        return (Thread.currentThread() == reloadingThread) ? loadingPackageContexts : packageContexts;
     }
 
     /**
      * The current runtime configuration. Currently, if changes have been made to the Configuration since the last
      * time buildRuntimeConfiguration() was called, you'll need to make sure to get it using this method.
+     * <p/>
+     * The runtime configuration is an immutable snapshot, a rebuild creates a new one and swaps it in at once, so
+     * lookups against it never need to lock.
      *
      * @return the current runtime configuration
      */
@@ -120,6 +135,7 @@ public class DefaultConfiguration implements Configuration {
      * @param packageConfig
      */
     public void addPackageConfig(String name, PackageConfig packageContext) {
+        Map packageContexts = packages();
       PackageConfig check = (PackageConfig) packageContexts.get(name);
         if (check != null) {
              LOG.error("The package name '" + name + "' is already been used by another package: " + check);
@@ -147,19 +163,36 @@ public class DefaultConfiguration implements Configuration {
      * Reload xwork configurations, by asking all of the {@link com.opensymphony.xwork.config.ConfigurationProvider}s
      * to reinitialize this {@link com.opensymphony.xwork.config.impl.DefaultConfiguration} and then
      * {@link #rebuildRuntimeConfiguration()}.
+     * <p/>
+     * The packages are loaded into a new map which only the reloading thread sees. Other threads keep seeing the
+     * previous packages and runtime configuration until both have been built, then the new ones are published one
+     * right after the other. If a provider fails, the previous configuration is kept.
      *
      * @throws ConfigurationException
      */
     public synchronized void reload() throws ConfigurationException {
-        packageContexts.clear();
+        loadingPackageContexts = new LinkedHashMap();
+        reloadingThread = Thread.currentThread();
 
-        for (Iterator iterator = ConfigurationManager.getConfigurationProviders().iterator();
-             iterator.hasNext();) {
-            ConfigurationProvider provider = (ConfigurationProvider) iterator.next();
-            provider.init(this);
+        RuntimeConfiguration loaded;
+        Map loadedPackageContexts = loadingPackageContexts;
+
+        try {
+            for (Iterator iterator = ConfigurationManager.getConfigurationProviders().iterator();
+                 iterator.hasNext();) {
+                ConfigurationProvider provider = (ConfigurationProvider) iterator.next();
+                provider.init(this);
+            }
+
+            loaded = buildRuntimeConfiguration();
+        } finally {
+            reloadingThread = null;
+            loadingPackageContexts = null;
         }
 
-        rebuildRuntimeConfiguration();
+        packageContexts = loadedPackageContexts;
+        runtimeConfiguration = loaded;
+        OgnlUtil.configureExpressionCaches(this);
     }
 
     /**
@@ -168,6 +201,7 @@ public class DefaultConfiguration implements Configuration {
      * @param name package name to be removed
      */
     public void removePackageConfig(String name) {
+        Map packageContexts = packages();
         PackageConfig toBeRemoved = (PackageConfig) packageContexts.get(name);
 
         if (toBeRemoved != null) {
@@ -187,7 +221,7 @@ public class DefaultConfiguration implements Configuration {
         Map namespaceActionConfigs = new LinkedHashMap();
         Map namespaceConfigs = new LinkedHashMap();
 
-        for (Iterator iterator = packageContexts.values().iterator();
+        for (Iterator iterator = packages().values().iterator();
              iterator.hasNext();) {
             PackageConfig packageContext = (PackageConfig) iterator.next();
 
@@ -254,7 +288,7 @@ public class DefaultConfiguration implements Configuration {
         	results.putAll(baseConfig.getResults());
         }
         else {
-            PackageConfig baseConfigPackageConfig = (PackageConfig) packageContexts.get(baseConfig.getPackageName());
+            PackageConfig baseConfigPackageConfig = (PackageConfig) packages().get(baseConfig.getPackageName());
             if ( baseConfigPackageConfig != null) {
                 results.putAll(baseConfigPackageConfig.getAllGlobalResults());
             }
@@ -279,17 +313,20 @@ public class DefaultConfiguration implements Configuration {
         exceptionMappings.addAll(packageContext.getAllExceptionMappingConfigs());
 
         ActionConfig config = new ActionConfig(baseConfig.getMethodName(), baseConfig.getClassName(), params, results, interceptors, externalRefs, exceptionMappings, packageContext.getName());
+        config.buildInterceptorPlan();
+        config.buildResultTable();
 
         return config;
     }
 
     /**
-     * Represents the current runtime configuration of xwork.
+     * Represents the current runtime configuration of xwork. It is immutable once created, so it is safe to
+     * read from any number of threads without locking.
      */
     private class RuntimeConfigurationImpl implements RuntimeConfiguration {
 
-        private Map namespaceActionConfigs;
-        private Map namespaceConfigs;
+        private final Map namespaceActionConfigs;
+        private final Map namespaceConfigs;
 
         /**
          * Create a new instance of {@link com.opensymphony.xwork.config.RuntimeConfiguration}.
@@ -297,8 +334,14 @@ public class DefaultConfiguration implements Configuration {
          * @param namespaceConfigs
          */
         public RuntimeConfigurationImpl(Map namespaceActionConfigs, Map namespaceConfigs) {
-            this.namespaceActionConfigs = namespaceActionConfigs;
-            this.namespaceConfigs = namespaceConfigs;
+            Map actionConfigs = new LinkedHashMap();
+            for (Iterator iterator = namespaceActionConfigs.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry entry = (Map.Entry) iterator.next();
+                actionConfigs.put(entry.getKey(), Collections.unmodifiableMap((Map) entry.getValue()));
+            }
+
+            this.namespaceActionConfigs = Collections.unmodifiableMap(actionConfigs);
+            this.namespaceConfigs = Collections.unmodifiableMap(namespaceConfigs);
         }
         
         
@@ -311,7 +354,7 @@ public class DefaultConfiguration implements Configuration {
          * @param namespace the namespace for the action or null for the empty namespace, ""
          * @return the configuration information for action requested
          */
-        public synchronized ActionConfig getActionConfig(String namespace, String name) {
+        public ActionConfig getActionConfig(String namespace, String name) {
             ActionConfig config = null;
             Map actions = (Map) namespaceActionConfigs.get((namespace == null) ? "" : namespace);
 
@@ -351,7 +394,7 @@ public class DefaultConfiguration implements Configuration {
          *
          * @return a Map of namespace - > Map of ActionConfig objects, with the key being the action name
          */
-        public synchronized Map getActionConfigs() {
+        public Map getActionConfigs() {
             return namespaceActionConfigs;
         }
 
@@ -58,6 +58,9 @@ import org.apache.commons.logging.LogFactory;
  * in the allowed list (the longer string determines permissions).</p> 
  * <!-- END SNIPPET: parameters -->
  *
+ * <p>The lists are compiled into a {@link ParameterNameFilter}, so filtering a parameter does not depend on the
+ * number of prefixes listed.</p>
+ *
  * @author Gabe
  */
 public class ParameterFilterInterceptor implements Interceptor {
@@ -70,7 +73,7 @@ public class ParameterFilterInterceptor implements Interceptor {
 
     private Collection blocked;
 
-    private Map includesExcludesMap;
+    private transient volatile ParameterNameFilter nameFilter;
 
     private boolean defaultBlock = false;
 
@@ -85,30 +88,13 @@ public class ParameterFilterInterceptor implements Interceptor {
         Map parameters = invocation.getInvocationContext().getParameters();
         HashSet paramsToRemove = new HashSet();
 
-        Map includesExcludesMap = getIncludesExcludesMap();
+        ParameterNameFilter nameFilter = getNameFilter();
 
         for (Iterator i = parameters.keySet().iterator(); i.hasNext();) {
 
             String param = (String) i.next();
 
-            boolean currentAllowed = !isDefaultBlock();
-
-            boolean foundApplicableRule = false;
-            for (Iterator j = includesExcludesMap.keySet().iterator(); j.hasNext();) {
-                String currRule = (String) j.next();
-
-                if (param.startsWith(currRule)
-                        && (param.length() == currRule.length()
-                        || isPropSeperator(param.charAt(currRule.length())))) {
-                    currentAllowed = ((Boolean) includesExcludesMap.get(currRule)).booleanValue();
-                } else {
-                    if (foundApplicableRule) {
-                        foundApplicableRule = false;
-                        break;
-                    }
-                }
-            }
-            if (!currentAllowed) {
+            if (!nameFilter.isAllowed(param)) {
                 paramsToRemove.add(param);
             }
         }
@@ -125,30 +111,20 @@ public class ParameterFilterInterceptor implements Interceptor {
     }
 
     /**
-     * @param c
-     * @return <tt>true</tt>, if char is property separator, <tt>false</tt> otherwise.
+     * Returns the allowed and blocked rules compiled into a {@link ParameterNameFilter}, the filter is built on first
+     * use and again once the rules have changed.
+     *
+     * @return the compiled rules
      */
-    private boolean isPropSeperator(char c) {
-        return c == '.' || c == '(' || c == '[';
-    }
+    public ParameterNameFilter getNameFilter() {
+        ParameterNameFilter filter = this.nameFilter;
 
-    private Map getIncludesExcludesMap() {
-        if (this.includesExcludesMap == null) {
-            this.includesExcludesMap = new TreeMap();
-
-            if (getAllowedCollection() != null) {
-                for (Iterator i = getAllowedCollection().iterator(); i.hasNext();) {
-                    this.includesExcludesMap.put(i.next(), Boolean.TRUE);
-                }
-            }
-            if (getBlockedCollection() != null) {
-                for (Iterator i = getBlockedCollection().iterator(); i.hasNext();) {
-                    this.includesExcludesMap.put(i.next(), Boolean.FALSE);
-                }
-            }
+        if (filter == null) {
+            filter = new ParameterNameFilter(getAllowedCollection(), getBlockedCollection(), !isDefaultBlock());
+            this.nameFilter = filter;
         }
 
-        return this.includesExcludesMap;
+        return filter;
     }
 
     /**
@@ -163,6 +139,7 @@ public class ParameterFilterInterceptor implements Interceptor {
      */
     public void setDefaultBlock(boolean defaultExclude) {
         this.defaultBlock = defaultExclude;
+        this.nameFilter = null;
     }
 
     /**
@@ -177,6 +154,7 @@ public class ParameterFilterInterceptor implements Interceptor {
      */
     public void setBlockedCollection(Collection blocked) {
         this.blocked = blocked;
+        this.nameFilter = null;
     }
 
     /**
@@ -198,6 +176,7 @@ public class ParameterFilterInterceptor implements Interceptor {
      */
     public void setAllowedCollection(Collection allowed) {
         this.allowed = allowed;
+        this.nameFilter = null;
     }
 
     /**
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.interceptor;
+
+import com.opensymphony.xwork.util.BoundedCache;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+
+/**
+ * A compiled set of allow and block rules on parameter names, as used by {@link ParameterFilterInterceptor}.
+ * <p/>
+ * A rule applies to the parameter named like the rule and to every member of the object it represents, that is to
+ * the names continuing the rule with a property separator (<tt>.</tt>, <tt>(</tt> or <tt>[</tt>). When several rules
+ * apply, the longest one decides, a rule both allowed and blocked is blocked.
+ * <p/>
+ * The rules are compiled into a character trie walked once along the name, so deciding on a name is linear in its
+ * length whatever the number of rules. Decisions are cached per name as well.
+ *
+ * @version $Date$ $Id$
+ */
+public class ParameterNameFilter {
+
+    public static final int DEFAULT_DECISION_CACHE_MAX_SIZE = 1000;
+
+    private final Node root = new Node();
+    private final boolean defaultAllowed;
+    private final BoundedCache decisions = new BoundedCache(DEFAULT_DECISION_CACHE_MAX_SIZE);
+
+
+    /**
+     * @param allowed        the rules of the allowed names, may be <tt>null</tt>
+     * @param blocked        the rules of the blocked names, may be <tt>null</tt>
+     * @param defaultAllowed whether names no rule applies to are allowed
+     */
+    public ParameterNameFilter(Collection allowed, Collection blocked, boolean defaultAllowed) {
+        this.defaultAllowed = defaultAllowed;
+        addRules(allowed, Boolean.TRUE);
+        addRules(blocked, Boolean.FALSE);
+    }
+
+
+    /**
+     * @param name the parameter name
+     * @return true if the parameter named <code>name</code> is allowed
+     */
+    public boolean isAllowed(String name) {
+        Boolean decision = (Boolean) decisions.get(name);
+
+        if (decision == null) {
+            decision = decide(name);
+            decisions.put(name, decision);
+        }
+
+        return decision.booleanValue();
+    }
+
+    /**
+     * Returns the cache of decisions taken per parameter name, mainly to monitor its hit and miss counts.
+     *
+     * @return the decision cache
+     */
+    public BoundedCache getDecisionCache() {
+        return decisions;
+    }
+
+    private Boolean decide(String name) {
+        Boolean decision = defaultAllowed ? Boolean.TRUE : Boolean.FALSE;
+        Node node = root;
+        int length = name.length();
+
+        for (int i = 0; node != null; i++) {
+            if ((node.rule != null) && ((i == length) || isPropSeparator(name.charAt(i)))) {
+                decision = node.rule;
+            }
+
+            if (i == length) {
+                break;
+            }
+
+            node = node.getChild(name.charAt(i));
+        }
+
+        return decision;
+    }
+
+    private void addRules(Collection rules, Boolean allowed) {
+        if (rules == null) {
+            return;
+        }
+
+        for (Iterator i = rules.iterator(); i.hasNext();) {
+            String rule = (String) i.next();
+            Node node = root;
+
+            for (int j = 0; j < rule.length(); j++) {
+                node = node.getOrAddChild(rule.charAt(j));
+            }
+
+            node.rule = allowed;
+        }
+    }
+
+    /**
+     * @param c
+     * @return <tt>true</tt>, if char is property separator, <tt>false</tt> otherwise.
+     */
+    private static boolean isPropSeparator(char c) {
+        return c == '.' || c == '(' || c == '[';
+    }
+
+
+    /**
+     * A trie node, its children are kept in small parallel arrays as rules seldom share long prefixes.
+     */
+    private static class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        Boolean rule;
+
+        Node getChild(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+
+            return null;
+        }
+
+        Node getOrAddChild(char c) {
+            Node child = getChild(c);
+
+            if (child == null) {
+                child = new Node();
+
+                char[] newKeys = new char[keys.length + 1];
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, keys.length);
+                System.arraycopy(children, 0, newChildren, 0, children.length);
+                newKeys[keys.length] = c;
+                newChildren[children.length] = child;
+                keys = newKeys;
+                children = newChildren;
+            }
+
+            return child;
+        }
+    }
+}
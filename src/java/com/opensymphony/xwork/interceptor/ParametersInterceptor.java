@@ -7,6 +7,9 @@ package com.opensymphony.xwork.interceptor;
 import com.opensymphony.xwork.*;
 import com.opensymphony.xwork.util.*;
 
+import ognl.OgnlContext;
+import ognl.OgnlException;
+
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -24,11 +27,18 @@ import org.apache.commons.logging.LogFactory;
  * request being applied to an action in the value stack. Note that the parameter map must contain a String key and
  * often containers a String[] for the value.
  *
+ * <p/> Parameters sharing the same path, such as <i>user.address.city</i> and <i>user.address.zip</i>, are bound as a
+ * batch: the shared path is resolved once and each property is then set on the resolved object, rather than searching
+ * the value stack and walking the path again for every parameter. The sorted, filtered and grouped parameter names are
+ * cached per action class and set of parameter names, see {@link #getBindPlanCache()}.
+ *
  * <p/> Because parameter names are effectively OGNL statements, it is important that security be taken in to account.
  * This interceptor will not apply any values in the parameters map if the expression contains an assignment (=),
  * multiple expressions (,), or references any objects in the context (#). This is all done in the {@link
  * #acceptableName(String)} method. In addition to this method, if the action being invoked implements the {@link
- * ParameterNameAware} interface, the action will be consulted to determine if the parameter should be set.
+ * ParameterNameAware} interface, the action will be consulted to determine if the parameter should be set. The
+ * decision taken by {@link #acceptableName(String)} is cached per name until the accepted or excluded patterns change,
+ * unless a subclass overrides {@link #isAccepted(String)} or {@link #isExcluded(String)}.
  *
  * <p/> In addition to these restrictions, a flag ({@link XWorkMethodAccessor#DENY_METHOD_EXECUTION}) is set such that
  * no methods are allowed to be invoked. That means that any expression such as <i>person.doSomething()</i> or
@@ -96,11 +106,37 @@ public class ParametersInterceptor extends AroundInterceptor {
     private String ACCEPTED_PARAM_NAMES = "\\w+((\\.\\w+)|(\\[\\d+\\])|(\\(\\d+\\))|(\\['\\w+'\\])|(\\('\\w+'\\)))*";
     private Pattern acceptedPattern = Pattern.compile(ACCEPTED_PARAM_NAMES,Pattern.CASE_INSENSITIVE);
 
+    public static final int DEFAULT_NAME_DECISION_CACHE_MAX_SIZE = 1000;
+    public static final int DEFAULT_BIND_PLAN_CACHE_MAX_SIZE = 100;
+
     Set excludeParams;
     Set acceptParams = Collections.emptySet();
 
+    private transient volatile FilterState filterState;
+    private final boolean cacheNameDecisions;
+    private final boolean cacheBindPlans;
+
     public ParametersInterceptor() {
         initializeHardCodedExcludePatterns();
+        cacheNameDecisions = !overrides("isAccepted") && !overrides("isExcluded");
+        cacheBindPlans = cacheNameDecisions && !overrides("acceptableName");
+    }
+
+    /**
+     * Returns true if a subclass declares its own <code>methodName(String)</code>, such an override may depend on more
+     * than the name so its decisions are not cached.
+     */
+    private boolean overrides(String methodName) {
+        for (Class c = getClass(); c != ParametersInterceptor.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(methodName, new Class[]{String.class});
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not declared here, look further up
+            }
+        }
+
+        return false;
     }
 
     protected void initializeHardCodedExcludePatterns() {
@@ -141,39 +177,271 @@ public class ParametersInterceptor extends AroundInterceptor {
     }
 
     protected void setParameters(Object action, OgnlValueStack stack, final Map parameters) {
-        ParameterNameAware parameterNameAware = (action instanceof ParameterNameAware)
-                ? (ParameterNameAware) action : null;
+        BindPlan plan = getBindPlan(action, parameters);
+
+        if (action instanceof ParameterNameAware) {
+            plan = plan.filter((ParameterNameAware) action);
+        }
+
+        Object[] values = new Object[plan.names.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parameters.get(plan.keys[i]);
+        }
+
+        bindParameters(action, stack, plan, values);
+    }
+
+    /**
+     * Binds the accepted parameters in the order given. Runs of parameters sharing the same path prefix, such as
+     * <tt>user.address.city</tt> and <tt>user.address.zip</tt> or <tt>items[3].name</tt> and <tt>items[3].price</tt>,
+     * are bound as a batch by {@link #setPrefixedParameters}, every other parameter is set through the value stack.
+     * Batching bypasses {@link OgnlValueStack#setValue(String, Object)}, so if the stack is a subclass, which may
+     * override how values are set, every parameter is set through it.
+     *
+     * @param action the action the parameters are bound for
+     * @param stack  the value stack
+     * @param names  the accepted parameter names, sorted
+     * @param values the parameter values, in the same order as the names
+     */
+    protected void bindParameters(Object action, OgnlValueStack stack, String[] names, Object[] values) {
+        bindParameters(action, stack, new BindPlan(names, names), values);
+    }
+
+    private void bindParameters(Object action, OgnlValueStack stack, BindPlan plan, Object[] values) {
+        boolean batching = (stack.getClass() == OgnlValueStack.class);
+        int start = 0;
+
+        while (start < plan.names.length) {
+            int end = batching ? plan.runEnds[start] : (start + 1);
 
-        for (Iterator iterator = (new TreeMap(parameters)).entrySet().iterator(); iterator.hasNext();) {
-            Map.Entry entry = (Map.Entry) iterator.next();
-            String name = entry.getKey().toString();
+            if ((end - start) > 1) {
+                setPrefixedParameters(action, stack, plan.prefixes[start], plan.names, plan.properties, values, start, end);
+            } else {
+                setParameter(action, stack, plan.names[start], values[start]);
+            }
+
+            start = end;
+        }
+    }
+
+    /**
+     * Returns the plan binding <code>parameters</code> on <code>action</code>: the accepted parameter names, sorted
+     * and grouped into the runs sharing a path prefix. Plans are cached per action class and set of parameter names,
+     * as an action usually receives the same parameters on every request. A request with any other set of names is
+     * planned from scratch and its plan cached in turn. The plans hold the decisions of {@link #acceptableName}, so
+     * they are dropped along with those decisions and not cached at all if a subclass overrides how names are
+     * checked.
+     *
+     * @param action     the action the parameters are bound for
+     * @param parameters the parameters
+     * @return the bind plan
+     */
+    private BindPlan getBindPlan(Object action, Map parameters) {
+        Class actionClass = (action == null) ? null : action.getClass();
+        BindPlanKey key = cacheBindPlans ? BindPlanKey.lookupKey(actionClass, parameters.keySet()) : null;
+
+        BoundedCache plans = getBindPlanCache();
+        BindPlan plan = (key == null) ? null : (BindPlan) plans.get(key);
+
+        if (plan == null) {
+            List keys = new ArrayList(parameters.size());
+            List names = new ArrayList(parameters.size());
+
+            for (Iterator iterator = (new TreeMap(parameters)).keySet().iterator(); iterator.hasNext();) {
+                Object parameterKey = iterator.next();
+                String name = parameterKey.toString();
+
+                if (acceptableName(name)) {
+                    keys.add(parameterKey);
+                    names.add(name);
+                }
+            }
+
+            plan = new BindPlan(keys.toArray(), (String[]) names.toArray(new String[names.size()]));
+
+            if (key != null) {
+                plans.put(key.copy(), plan);
+            }
+        }
+
+        return plan;
+    }
+
+    /**
+     * Returns the cache of bind plans, mainly to monitor its hit rate: a miss is a request whose parameter names had
+     * not been seen for its action class yet. A new, empty cache is started whenever the accepted or excluded
+     * patterns change.
+     *
+     * @return the bind plan cache
+     */
+    public BoundedCache getBindPlanCache() {
+        return getFilterState().bindPlans;
+    }
 
-            boolean acceptableName = acceptableName(name)
-                    && (parameterNameAware == null
-                    || parameterNameAware.acceptableParameterName(name));
+    /**
+     * Binds the parameters from <code>start</code> to <code>end</code> which all are a simple property of the
+     * object <code>prefix</code> evaluates to. The prefix is resolved only once, creating null objects along the way
+     * just like setting each parameter on the stack would, then every property is set on the resolved object
+     * directly. The conversion state of the resolved path is restored before each property is set so type
+     * conversion and conversion errors behave as if the full name had been set on the stack.
+     * <p/>
+     * If the prefix cannot be resolved the parameters are set through the value stack one by one instead.
+     *
+     * @param action     the action the parameters are bound for
+     * @param stack      the value stack
+     * @param prefix     the path shared by the parameters, without the trailing dot
+     * @param names      the accepted parameter names
+     * @param properties the parameter names relative to the prefix
+     * @param values     the parameter values
+     * @param start      the index of the first parameter of the batch
+     * @param end        the index after the last parameter of the batch
+     */
+    protected void setPrefixedParameters(Object action, OgnlValueStack stack, String prefix, String[] names,
+                                         String[] properties, Object[] values, int start, int end) {
+        Map context = stack.getContext();
+        Object target = null;
+        Object[] state = null;
+
+        try {
+            OgnlContextState.clear(context);
+            target = OgnlUtil.getValue(prefix, context, stack.getRoot());
+            state = saveConversionState(context);
+        } catch (OgnlException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Unable to resolve parameter prefix '" + prefix + "', setting parameters one by one", e);
+            }
+        } catch (RuntimeException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Unable to resolve parameter prefix '" + prefix + "', setting parameters one by one", e);
+            }
+        } finally {
+            OgnlContextState.clear(context);
+        }
+
+        if (target == null) {
+            for (int i = start; i < end; i++) {
+                setParameter(action, stack, names[i], values[i]);
+            }
+            return;
+        }
+
+        boolean devMode = stack.isDevModeEnabled();
+
+        try {
+            for (int i = start; i < end; i++) {
+                String name = names[i];
+                Object value = values[i];
 
-            if (acceptableName) {
-                Object value = entry.getValue();
                 try {
-                    stack.setValue(name, value);
-                } catch (XworkException e) {
-                    final Boolean devMode = (Boolean) stack.getContext().get(ActionContext.DEV_MODE);
-                    if (devMode != null && devMode.booleanValue()) {
-                        String developerNotification = LocalizedTextUtil.findText(ParametersInterceptor.class, "webwork.messages.devmode.notification", ActionContext.getContext().getLocale(), "Developer Notification (set webwork.devMode to false to disable this message):\n{0}", new Object[]{
-                                e.getMessage()
-                        });
-                        LOG.error(developerNotification);
-                        if (action instanceof ValidationAware) {
-                            ((ValidationAware) action).addActionMessage(developerNotification);
-                        }
-                    } else {
-                        LOG.error("ParametersInterceptor - [setParameters]: Unexpected Exception catched: " + e.getMessage());
-                    }
+                    restoreConversionState(context, state);
+                    context.put(XWorkConverter.CONVERSION_PROPERTY_FULLNAME, name);
+                    OgnlUtil.setValue(properties[i], context, target, value);
+                } catch (OgnlException e) {
+                    handleSetFailure(action, stack, name, value, e, devMode);
+                } catch (RuntimeException e) {
+                    handleSetFailure(action, stack, name, value, e, devMode);
+                } finally {
+                    OgnlContextState.clear(context);
+                    context.remove(XWorkConverter.CONVERSION_PROPERTY_FULLNAME);
                 }
             }
+        } finally {
+            // setting a property on the resolved object made it the root of the shared OGNL context
+            if (context instanceof OgnlContext) {
+                ((OgnlContext) context).setRoot(stack.getRoot());
+            }
+        }
+    }
+
+    /**
+     * Sets a single parameter on the value stack, reporting a failure as described by {@link #handleException}.
+     *
+     * @param action the action the parameter is bound for
+     * @param stack  the value stack
+     * @param name   the parameter name
+     * @param value  the parameter value
+     */
+    protected void setParameter(Object action, OgnlValueStack stack, String name, Object value) {
+        try {
+            stack.setValue(name, value);
+        } catch (XworkException e) {
+            handleException(action, stack, e);
+        }
+    }
+
+    /**
+     * Reports a parameter that could not be set, as a developer notification in dev mode or in the log otherwise.
+     *
+     * @param action the action the parameter was bound for
+     * @param stack  the value stack
+     * @param e      the failure
+     */
+    protected void handleException(Object action, OgnlValueStack stack, XworkException e) {
+        final Boolean devMode = (Boolean) stack.getContext().get(ActionContext.DEV_MODE);
+        if (devMode != null && devMode.booleanValue()) {
+            String developerNotification = LocalizedTextUtil.findText(ParametersInterceptor.class, "webwork.messages.devmode.notification", ActionContext.getContext().getLocale(), "Developer Notification (set webwork.devMode to false to disable this message):\n{0}", new Object[]{
+                    e.getMessage()
+            });
+            LOG.error(developerNotification);
+            if (action instanceof ValidationAware) {
+                ((ValidationAware) action).addActionMessage(developerNotification);
+            }
+        } else {
+            LOG.error("ParametersInterceptor - [setParameters]: Unexpected Exception catched: " + e.getMessage());
         }
     }
 
+    /**
+     * Reports a property of a batch that could not be set the way {@link OgnlValueStack#setValue(String, Object)}
+     * would have for the full parameter name.
+     */
+    private void handleSetFailure(Object action, OgnlValueStack stack, String name, Object value, Exception e,
+                                  boolean devMode) {
+        if (devMode) {
+            String msg = "Error setting expr '" + name + "' with value '" + value + "'";
+            LOG.error(msg, e);
+            handleException(action, stack, (e instanceof XworkException) ? (XworkException) e : new XworkException(msg, e));
+        } else if (LOG.isDebugEnabled()) {
+            LOG.debug("Error setting value", e);
+        }
+    }
+
+    /**
+     * Returns the length of the path shared with sibling parameters, that is everything before the last dot, if
+     * what follows the last dot is a simple property name. Returns -1 for any other parameter name.
+     */
+    private static int getPrefixLength(String name) {
+        int dot = name.lastIndexOf('.');
+
+        if ((dot <= 0) || (dot == (name.length() - 1))) {
+            return -1;
+        }
+
+        for (int i = dot + 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (!(((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '_'))) {
+                return -1;
+            }
+        }
+
+        return dot;
+    }
+
+    private static Object[] saveConversionState(Map context) {
+        return new Object[]{
+                OgnlContextState.getLastBeanClassAccessed(context),
+                OgnlContextState.getLastBeanPropertyAccessed(context),
+                OgnlContextState.getCurrentPropertyPath(context)
+        };
+    }
+
+    private static void restoreConversionState(Map context, Object[] state) {
+        OgnlContextState.setLastBeanClassAccessed(context, (Class) state[0]);
+        OgnlContextState.setLastBeanPropertyAccessed(context, (String) state[1]);
+        OgnlContextState.setFullPropertyPath(context, (String) state[2]);
+    }
+
     private String getParameterLogMap(Map parameters) {
         if (parameters == null) {
             return "NONE";
@@ -203,8 +471,38 @@ public class ParametersInterceptor extends AroundInterceptor {
     }
 
 
+    /**
+     * Decides whether the parameter named <code>name</code> may be set. Names are checked by {@link #isAccepted} and
+     * {@link #isExcluded} the first time they are seen only, the decision is cached afterwards until the accepted or
+     * excluded patterns change. If a subclass overrides either method, every name is checked on every call instead.
+     *
+     * @param name the parameter name
+     * @return true if the parameter may be set
+     */
     protected boolean acceptableName(String name) {
-        return isAccepted(name) && !isExcluded(name);
+        if (!cacheNameDecisions) {
+            return isAccepted(name) && !isExcluded(name);
+        }
+
+        BoundedCache decisions = getNameDecisionCache();
+        Boolean decision = (Boolean) decisions.get(name);
+
+        if (decision == null) {
+            decision = (isAccepted(name) && !isExcluded(name)) ? Boolean.TRUE : Boolean.FALSE;
+            decisions.put(name, decision);
+        }
+
+        return decision.booleanValue();
+    }
+
+    /**
+     * Returns the cache of the decisions taken by {@link #acceptableName(String)}, mainly to monitor its hit and
+     * miss counts. A new, empty cache is started whenever the accepted or excluded patterns change.
+     *
+     * @return the name decision cache
+     */
+    public BoundedCache getNameDecisionCache() {
+        return getFilterState().nameDecisions;
     }
 
     protected boolean isAccepted(String paramName) {
@@ -224,6 +522,11 @@ public class ParametersInterceptor extends AroundInterceptor {
 
     protected boolean isExcluded(String paramName) {
         if (!this.excludeParams.isEmpty()) {
+            Pattern combined = getExcludePattern();
+            if (combined != null) {
+                return combined.matcher(paramName).matches();
+            }
+
             Iterator ite = excludeParams.iterator();
             while(ite.hasNext()){
                 Pattern pattern = (Pattern)ite.next();
@@ -236,4 +539,222 @@ public class ParametersInterceptor extends AroundInterceptor {
         return false;
     }
 
+    /**
+     * Returns the exclude patterns joined into a single alternation, so that a name is matched against all of them in
+     * one pass. Returns <tt>null</tt> if they cannot be joined safely, that is if a pattern uses flags other than
+     * {@link Pattern#CASE_INSENSITIVE} or back references, in which case they are matched one by one.
+     */
+    private Pattern getExcludePattern() {
+        return getFilterState().excludePattern.pattern;
+    }
+
+    /**
+     * Drops what was derived from the accepted and excluded patterns, to be called after changing the contents of
+     * {@link #excludeParams} or {@link #acceptParams}. Replacing either set is noticed without it.
+     */
+    void patternsChanged() {
+        filterState = null;
+    }
+
+    /**
+     * Returns the state derived from the current accepted and excluded patterns, deriving it again if either set has
+     * been replaced or {@link #patternsChanged()} called since it was last derived.
+     */
+    private FilterState getFilterState() {
+        FilterState state = filterState;
+
+        if ((state == null) || !state.isCurrent(excludeParams, acceptParams)) {
+            state = new FilterState(excludeParams, acceptParams);
+            filterState = state;
+        }
+
+        return state;
+    }
+
+
+    /**
+     * The accepted parameter names of a request, sorted, along with the runs of names sharing a path prefix. The
+     * run of the name at index <code>i</code> ends at <code>runEnds[i]</code>, its prefix and the names relative to
+     * it are kept when the run has more than one name.
+     */
+    private static class BindPlan {
+        final Object[] keys;
+        final String[] names;
+        final int[] runEnds;
+        final String[] prefixes;
+        final String[] properties;
+
+        BindPlan(Object[] keys, String[] names) {
+            this.keys = keys;
+            this.names = names;
+            this.runEnds = new int[names.length];
+            this.prefixes = new String[names.length];
+            this.properties = new String[names.length];
+
+            int start = 0;
+            while (start < names.length) {
+                int prefixLength = getPrefixLength(names[start]);
+                int end = start + 1;
+
+                if (prefixLength > 0) {
+                    while ((end < names.length) && (getPrefixLength(names[end]) == prefixLength)
+                            && names[end].regionMatches(0, names[start], 0, prefixLength)) {
+                        end++;
+                    }
+                }
+
+                for (int i = start; i < end; i++) {
+                    runEnds[i] = end;
+
+                    if ((end - start) > 1) {
+                        prefixes[i] = names[start].substring(0, prefixLength);
+                        properties[i] = names[i].substring(prefixLength + 1);
+                    }
+                }
+
+                start = end;
+            }
+        }
+
+        /**
+         * Returns the plan of the names accepted by <code>parameterNameAware</code>, which is consulted on every
+         * request as its decisions may depend on the state of the action.
+         */
+        BindPlan filter(ParameterNameAware parameterNameAware) {
+            List keys = null;
+            List names = null;
+
+            for (int i = 0; i < this.names.length; i++) {
+                boolean accepted = parameterNameAware.acceptableParameterName(this.names[i]);
+
+                if (!accepted && (names == null)) {
+                    keys = new ArrayList(Arrays.asList(this.keys).subList(0, i));
+                    names = new ArrayList(Arrays.asList(this.names).subList(0, i));
+                } else if (accepted && (names != null)) {
+                    keys.add(this.keys[i]);
+                    names.add(this.names[i]);
+                }
+            }
+
+            if (names == null) {
+                return this;
+            }
+
+            return new BindPlan(keys.toArray(), (String[]) names.toArray(new String[names.size()]));
+        }
+    }
+
+
+    /**
+     * Cache key of a bind plan: the action class and the set of parameter names. Lookups use a key wrapping the
+     * parameter names of the request as they are, cached keys hold a copy of them.
+     */
+    private static class BindPlanKey {
+        final Class actionClass;
+        final Set names;
+        final int hashCode;
+
+        private BindPlanKey(Class actionClass, Set names, int hashCode) {
+            this.actionClass = actionClass;
+            this.names = names;
+            this.hashCode = hashCode;
+        }
+
+        /**
+         * @return the key to look plans up with or <tt>null</tt> if a parameter name is not a String, such
+         *         parameters are planned on every request
+         */
+        static BindPlanKey lookupKey(Class actionClass, Set names) {
+            int hashCode = (actionClass == null) ? 0 : actionClass.hashCode();
+
+            for (Iterator iterator = names.iterator(); iterator.hasNext();) {
+                Object name = iterator.next();
+
+                if (!(name instanceof String)) {
+                    return null;
+                }
+                hashCode += name.hashCode();
+            }
+
+            return new BindPlanKey(actionClass, names, hashCode);
+        }
+
+        BindPlanKey copy() {
+            return new BindPlanKey(actionClass, new HashSet(names), hashCode);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof BindPlanKey)) {
+                return false;
+            }
+
+            final BindPlanKey bindPlanKey = (BindPlanKey) o;
+
+            return (hashCode == bindPlanKey.hashCode) && (actionClass == bindPlanKey.actionClass)
+                    && names.equals(bindPlanKey.names);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+
+    /**
+     * What is derived from the accepted and excluded patterns: the joined exclude pattern, the decisions taken
+     * with them and the bind plans holding those decisions. It is kept along with the pattern sets it was derived
+     * from, so that replacing a set is noticed by comparing references only, whatever the number of patterns.
+     */
+    private static class FilterState {
+        final Set excludeSource;
+        final Set acceptSource;
+        final ExcludePattern excludePattern;
+        final BoundedCache nameDecisions = new BoundedCache(DEFAULT_NAME_DECISION_CACHE_MAX_SIZE);
+        final BoundedCache bindPlans = new BoundedCache(DEFAULT_BIND_PLAN_CACHE_MAX_SIZE);
+
+        FilterState(Set excludeParams, Set acceptParams) {
+            this.excludeSource = excludeParams;
+            this.acceptSource = acceptParams;
+            this.excludePattern = new ExcludePattern(excludeParams);
+        }
+
+        boolean isCurrent(Set excludeParams, Set acceptParams) {
+            return (excludeSource == excludeParams) && (acceptSource == acceptParams);
+        }
+    }
+
+
+    /**
+     * The exclude patterns joined together.
+     */
+    private static class ExcludePattern {
+        final Pattern pattern;
+
+        ExcludePattern(Set excludeParams) {
+            StringBuffer alternation = new StringBuffer();
+            for (Iterator ite = excludeParams.iterator(); ite.hasNext();) {
+                Pattern pattern = (Pattern) ite.next();
+                String regex = pattern.pattern();
+
+                if ((pattern.flags() & ~Pattern.CASE_INSENSITIVE) != 0 || regex.matches("(?s).*\\\\[0-9].*")) {
+                    alternation = null;
+                    break;
+                }
+
+                if (alternation.length() > 0) {
+                    alternation.append('|');
+                }
+                alternation.append(((pattern.flags() & Pattern.CASE_INSENSITIVE) != 0) ? "(?i:" : "(?:");
+                alternation.append(regex);
+                alternation.append(')');
+            }
+
+            this.pattern = (alternation == null) ? null : Pattern.compile(alternation.toString());
+        }
+    }
+
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A size bounded cache that is safe for concurrent use without any global lock. Reads never block,
+ * writes only contend on the segment of the underlying {@link ConcurrentHashMap} they hash to.
+ * <p/>
+ * When the number of entries grows beyond {@link #getMaxSize()}, entries are evicted using the
+ * "second chance" (CLOCK) approximation of LRU: entries are queued in insertion order, an entry that
+ * has been read since it was queued is given another round instead of being evicted.
+ * <p/>
+ * Hit, miss and eviction counters are kept so the effectiveness of the cache can be monitored.
+ * Neither keys nor values may be <tt>null</tt>.
+ *
+ * @version $Date$ $Id$
+ */
+public class BoundedCache {
+
+    private final ConcurrentHashMap entries = new ConcurrentHashMap();
+    private final ConcurrentLinkedQueue evictionQueue = new ConcurrentLinkedQueue();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private volatile int maxSize;
+
+
+    /**
+     * Creates a new cache holding at most <code>maxSize</code> entries, a <code>maxSize</code> of
+     * zero or less means the cache is unbounded.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public BoundedCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+
+    /**
+     * Returns the value cached under <code>key</code> or <tt>null</tt> if there is none.
+     *
+     * @param key the key
+     * @return the cached value or <tt>null</tt>
+     */
+    public Object get(Object key) {
+        Entry entry = (Entry) entries.get(key);
+
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        // avoid dirtying the entry for every read of an already hot entry
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hitCount.incrementAndGet();
+
+        return entry.value;
+    }
+
+    /**
+     * Caches <code>value</code> under <code>key</code>, replacing any value already cached.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the value previously cached under <code>key</code> or <tt>null</tt>
+     */
+    public Object put(Object key, Object value) {
+        Entry entry = new Entry(key, value);
+        Entry existing = (Entry) entries.putIfAbsent(key, entry);
+
+        if (existing != null) {
+            // replace in place so the eviction queue keeps a single entry per key
+            Object old = existing.value;
+            existing.value = value;
+            return old;
+        }
+
+        evictionQueue.offer(entry);
+        size.incrementAndGet();
+        evictIfNecessary();
+
+        return null;
+    }
+
+    /**
+     * Caches <code>value</code> under <code>key</code> unless a value is already cached, in which case
+     * the cached value is left untouched and returned.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the value already cached under <code>key</code> or <tt>null</tt> if <code>value</code> was cached
+     */
+    public Object putIfAbsent(Object key, Object value) {
+        Entry entry = new Entry(key, value);
+        Entry existing = (Entry) entries.putIfAbsent(key, entry);
+
+        if (existing != null) {
+            return existing.value;
+        }
+
+        evictionQueue.offer(entry);
+        size.incrementAndGet();
+        evictIfNecessary();
+
+        return null;
+    }
+
+    /**
+     * Removes the value cached under <code>key</code>. This is linear in the size of the cache and meant
+     * for occasional invalidation rather than for the hot path.
+     *
+     * @param key the key
+     * @return the value removed or <tt>null</tt> if nothing was cached under <code>key</code>
+     */
+    public Object remove(Object key) {
+        Entry entry = (Entry) entries.remove(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        size.decrementAndGet();
+        evictionQueue.remove(entry);
+
+        return entry.value;
+    }
+
+    /**
+     * Removes all cached values, the statistics are left untouched.
+     */
+    public void clear() {
+        for (Entry entry = (Entry) evictionQueue.poll(); entry != null; entry = (Entry) evictionQueue.poll()) {
+            if (entries.remove(entry.key, entry)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached values
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the maximum number of cached values, zero or less if the cache is unbounded
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Changes the maximum number of cached values, evicting values right away if the cache has become
+     * too large. Zero or less makes the cache unbounded.
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evictIfNecessary();
+    }
+
+    /**
+     * @return the number of lookups that found a cached value
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that did not find a cached value
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of values removed to keep the cache within its maximum size
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters to zero.
+     */
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+    }
+
+    public String toString() {
+        return "BoundedCache[size=" + size() + ", maxSize=" + maxSize + ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    private void evictIfNecessary() {
+        while (maxSize > 0 && size.get() > maxSize) {
+            Entry entry = (Entry) evictionQueue.poll();
+
+            if (entry == null) {
+                return;
+            }
+
+            if (entry.referenced) {
+                entry.referenced = false;
+                evictionQueue.offer(entry);
+                continue;
+            }
+
+            if (entries.remove(entry.key, entry)) {
+                size.decrementAndGet();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+
+    private static class Entry {
+        final Object key;
+        volatile Object value;
+        volatile boolean referenced;
+
+        Entry(Object key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
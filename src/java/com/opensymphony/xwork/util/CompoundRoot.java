@@ -4,28 +4,94 @@
  */
 package com.opensymphony.xwork.util;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
 
 
 /**
  * A Stack that is implemented using a List.
- * 
+ * <p/>
+ * As a list, the stack is seen top first: index 0 is the top of the stack. The objects are kept in an array the other
+ * way round, the top at the end, so that {@link #push(Object)} and {@link #pop()} do not shift the rest of the stack.
+ * <p/>
+ * {@link #cutStack(int)}, {@link #clone()} and copying a compound root share the array with the original stack until
+ * either of them is modified, at which point the modified one copies it.
+ * <p/>
+ * The serialized form is the objects of the stack, bottom first. It is not compatible with the serialized form of
+ * earlier versions, which extended {@link java.util.ArrayList}: such stacks cannot be read back.
+ *
  * @author plightbo
  * @version $Revision: 872 $
  */
-public class CompoundRoot extends ArrayList {
+public class CompoundRoot extends AbstractList implements RandomAccess, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 6386302386958934113L;
+
+    private transient Object[] elements;
+    private transient int size;
+
+    /**
+     * The number of array slots, from the bottom of the stack, that another compound root may still read. They are
+     * copied before being written to.
+     */
+    private transient int sharedLength;
+
+    private transient Class[] types;
+    private transient int typesHash;
+    private transient int typesModCount;
+
 
     public CompoundRoot() {
+        elements = new Object[10];
     }
 
     public CompoundRoot(List list) {
-        super(list);
+        if (list instanceof CompoundRoot) {
+            CompoundRoot root = (CompoundRoot) list;
+            share(root, root.size);
+        } else {
+            Object[] objects = list.toArray();
+            size = objects.length;
+            elements = new Object[Math.max(size, 10)];
+
+            for (int i = 0; i < size; i++) {
+                elements[size - 1 - i] = objects[i];
+            }
+        }
+    }
+
+    private CompoundRoot(CompoundRoot root, int length) {
+        share(root, length);
     }
 
 
+    /**
+     * Returns the stack below the <code>index</code> topmost objects, as the sublist from <code>index</code> to the
+     * end would. The returned stack does not copy the objects of this one.
+     *
+     * @param index the number of objects to leave out from the top
+     * @return the cut stack
+     */
     public CompoundRoot cutStack(int index) {
-        return new CompoundRoot(subList(index, size()));
+        if ((index < 0) || (index > size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return new CompoundRoot(this, size - index);
+    }
+
+    /**
+     * Returns a shallow copy of this stack, as {@link java.util.ArrayList#clone()} would.
+     *
+     * @return a copy of this stack
+     */
+    public Object clone() {
+        return new CompoundRoot(this, size);
     }
 
     public Object peek() {
@@ -33,10 +99,185 @@ public class CompoundRoot extends ArrayList {
     }
 
     public Object pop() {
-        return remove(0);
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("Index: 0, Size: 0");
+        }
+
+        modCount++;
+        size--;
+        Object o = elements[size];
+
+        if (size >= sharedLength) {
+            elements[size] = null;
+        }
+
+        return o;
     }
 
     public void push(Object o) {
-        add(0, o);
+        prepareWrite(size, size + 1);
+        modCount++;
+        elements[size++] = o;
+    }
+
+    public Object get(int index) {
+        return elements[position(index, size)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Object set(int index, Object element) {
+        int position = position(index, size);
+        prepareWrite(position, size);
+        types = null;
+
+        Object old = elements[position];
+        elements[position] = element;
+
+        return old;
+    }
+
+    public void add(int index, Object element) {
+        int position = position(index, size + 1);
+        prepareWrite(position, size + 1);
+        modCount++;
+
+        System.arraycopy(elements, position, elements, position + 1, size - position);
+        elements[position] = element;
+        size++;
+    }
+
+    public Object remove(int index) {
+        int position = position(index, size);
+        prepareWrite(position, size);
+        modCount++;
+
+        Object old = elements[position];
+        System.arraycopy(elements, position + 1, elements, position, size - position - 1);
+        elements[--size] = null;
+
+        return old;
+    }
+
+    public void clear() {
+        modCount++;
+
+        if (sharedLength > 0) {
+            elements = new Object[elements.length];
+            sharedLength = 0;
+        } else {
+            for (int i = 0; i < size; i++) {
+                elements[i] = null;
+            }
+        }
+
+        size = 0;
+    }
+
+    public int indexOf(Object o) {
+        for (int i = size - 1; i >= 0; i--) {
+            if ((o == null) ? (elements[i] == null) : o.equals(elements[i])) {
+                return size - 1 - i;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Returns the types of the objects on this stack, top first, with <tt>null</tt> for a <tt>null</tt> object.
+     * The array is cached until the stack is modified and must not be changed by callers.
+     *
+     * @return the types of the objects on this stack
+     */
+    Class[] getTypes() {
+        if ((types == null) || (typesModCount != modCount)) {
+            Class[] t = new Class[size];
+            int h = 1;
+            for (int i = 0; i < t.length; i++) {
+                Object o = elements[size - 1 - i];
+                t[i] = (o == null) ? null : o.getClass();
+                h = 31 * h + ((t[i] == null) ? 0 : t[i].hashCode());
+            }
+            types = t;
+            typesHash = h;
+            typesModCount = modCount;
+        }
+        return types;
+    }
+
+    /**
+     * Returns the hash code of the types returned by {@link #getTypes()}, cached along with them.
+     *
+     * @return the hash code of the types of the objects on this stack
+     */
+    int getTypesHash() {
+        getTypes();
+        return typesHash;
+    }
+
+    /**
+     * Makes this stack the <code>length</code> bottommost objects of <code>root</code>, sharing its array.
+     */
+    private void share(CompoundRoot root, int length) {
+        elements = root.elements;
+        size = length;
+        sharedLength = elements.length;
+        root.sharedLength = Math.max(root.sharedLength, length);
+    }
+
+    /**
+     * Translates a list index into a position in the array.
+     */
+    private static int position(int index, int size) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return size - 1 - index;
+    }
+
+    /**
+     * Makes the array safe to write from <code>position</code> on and large enough for <code>capacity</code>
+     * objects, copying it if another compound root may read the slots written or if it is too small.
+     */
+    private void prepareWrite(int position, int capacity) {
+        if ((position < sharedLength) || (capacity > elements.length)) {
+            int length = elements.length;
+
+            if (capacity > length) {
+                length = Math.max(capacity, (length * 3) / 2 + 1);
+            }
+
+            Object[] copy = new Object[length];
+            System.arraycopy(elements, 0, copy, 0, size);
+            elements = copy;
+            sharedLength = 0;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+
+        for (int i = 0; i < size; i++) {
+            out.writeObject(elements[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        elements = new Object[Math.max(size, 10)];
+
+        for (int i = 0; i < size; i++) {
+            elements[i] = in.readObject();
+        }
     }
 }
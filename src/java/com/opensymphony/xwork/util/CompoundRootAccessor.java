@@ -13,11 +13,17 @@ import org.apache.commons.logging.LogFactory;
 
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 
 /**
  * An OGNL property accessor that is able to call methods on objects in the {@link CompoundRoot}.
+ * <p/>
+ * Which object on the stack a property resolves to only depends on the types of the objects on the stack, except
+ * for maps, whose keys are checked on every lookup. Resolutions are therefore cached per property name and per
+ * ordered list of the types on the stack, so that repeated lookups do not walk the stack asking OGNL for
+ * getters and setters again.
  *
  * @author Rainer Hermanns
  * @author tmjee
@@ -28,6 +34,10 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
     private final static Log log = LogFactory.getLog(CompoundRootAccessor.class);
     private static Map invalidMethods = new HashMap();
 
+    private static final int RESOLUTION_CACHE_MAX_SIZE = 10000;
+    private static final BoundedCache getterResolutions = new BoundedCache(RESOLUTION_CACHE_MAX_SIZE);
+    private static final BoundedCache setterResolutions = new BoundedCache(RESOLUTION_CACHE_MAX_SIZE);
+
     public Class getPropertyClass(OgnlContext ognlcontext, Object target, Object name) {
         //System.out.println("getPropertyClass "+target+"\t"+name);
         CompoundRoot root = (CompoundRoot) target;
@@ -261,26 +271,16 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
         CompoundRoot root = (CompoundRoot) target;
         OgnlContext ognlContext = (OgnlContext) context;
 
-        for (Iterator iterator = root.iterator(); iterator.hasNext();) {
-            Object o = iterator.next();
-
-            if (o == null) {
-                continue;
-            }
+        Resolution resolution = resolveSetter(ognlContext, root, name);
+        if (resolution.index >= 0) {
+            Object o = root.get(resolution.index);
 
-            try {
-                if (OgnlRuntime.hasSetProperty(ognlContext, o, name)) {
-                    OgnlRuntime.setProperty(ognlContext, o, name, value);
-
-                    return;
-                } else if (o instanceof Map) {
-                    Map map = (Map) o;
-                    map.put(name, value);
-                    return;
-                }
-            } catch (IntrospectionException e) {
-                // this is OK if this happens, we'll just keep trying the next
+            if (resolution.map) {
+                ((Map) o).put(name, value);
+            } else {
+                OgnlRuntime.setProperty(ognlContext, o, name, value);
             }
+            return;
         }
 
         Boolean reportError = (Boolean) context.get(OgnlValueStack.REPORT_ERRORS_ON_NO_PROP);
@@ -321,33 +321,141 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
                 }
             }
 
-            for (Iterator iterator = root.iterator(); iterator.hasNext();) {
-                Object o = iterator.next();
+            Resolution resolution = resolveGetter(ognlContext, root, name);
+            if (resolution == null) {
+                return getProperty(ognlContext, root, name, 0, false);
+            }
+
+            // maps above the resolved object might have gained the key since the resolution was cached
+            for (int i = 0; i < resolution.mapIndexes.length; i++) {
+                int index = resolution.mapIndexes[i];
+                if (((Map) root.get(index)).containsKey(name)) {
+                    return getProperty(ognlContext, root, name, index, true);
+                }
+            }
+
+            if (resolution.index >= 0) {
+                return getProperty(ognlContext, root, name, resolution.index, true);
+            }
+
+            return null;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the property from the first object on the stack, starting at <code>from</code>, that has it.
+     *
+     * @param fromMatches whether the object at <code>from</code> is already known to have the property
+     */
+    private Object getProperty(OgnlContext ognlContext, CompoundRoot root, Object name, int from, boolean fromMatches) throws OgnlException {
+        for (int i = from; i < root.size(); i++) {
+            Object o = root.get(i);
+
+            if (o == null) {
+                continue;
+            }
+
+            try {
+                if (((i == from) && fromMatches) || (OgnlRuntime.hasGetProperty(ognlContext, o, name)) || ((o instanceof Map) && ((Map) o).containsKey(name)))
+                {
+                    return OgnlRuntime.getProperty(ognlContext, o, name);
+                }
+            } catch (OgnlException e) {
+                if (e.getReason() != null) {
+                    final String msg = "Caught an Ognl exception while getting property " + name;
+                    log.error(msg, e);
+                    throw new XworkException(msg, e);
+                }
+            } catch (IntrospectionException e) {
+                // this is OK if this happens, we'll just keep trying the next
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolves the first object on the stack with a getter for the property <code>name</code>, together with the
+     * maps above it whose keys still need to be checked on every lookup.
+     *
+     * @return the resolution or <tt>null</tt> if it could not be determined and the stack has to be walked
+     */
+    private Resolution resolveGetter(OgnlContext ognlContext, CompoundRoot root, Object name) {
+        ResolutionKey key = new ResolutionKey(root.getTypes(), root.getTypesHash(), name);
+        Resolution resolution = (Resolution) getterResolutions.get(key);
+
+        if (resolution == null) {
+            int index = -1;
+            int[] mapIndexes = new int[root.size()];
+            int mapCount = 0;
+
+            for (int i = 0; (i < root.size()) && (index < 0); i++) {
+                Object o = root.get(i);
 
                 if (o == null) {
                     continue;
                 }
 
                 try {
-                    if ((OgnlRuntime.hasGetProperty(ognlContext, o, name)) || ((o instanceof Map) && ((Map) o).containsKey(name)))
-                    {
-                        return OgnlRuntime.getProperty(ognlContext, o, name);
+                    if (OgnlRuntime.hasGetProperty(ognlContext, o, name)) {
+                        index = i;
+                    } else if (o instanceof Map) {
+                        mapIndexes[mapCount++] = i;
                     }
                 } catch (OgnlException e) {
-                    if (e.getReason() != null) {
-                        final String msg = "Caught an Ognl exception while getting property " + name;
-                        log.error(msg, e);
-                        throw new XworkException(msg, e);
+                    return null;
+                } catch (IntrospectionException e) {
+                    // this is OK if this happens, we'll just keep trying the next
+                }
+            }
+
+            int[] maps = new int[mapCount];
+            System.arraycopy(mapIndexes, 0, maps, 0, mapCount);
+            resolution = new Resolution(index, false, maps);
+            getterResolutions.put(key.weakCopy(), resolution);
+        }
+
+        return resolution;
+    }
+
+    /**
+     * Resolves the first object on the stack with a setter for the property <code>name</code>, or the first map
+     * if that comes first.
+     */
+    private Resolution resolveSetter(OgnlContext ognlContext, CompoundRoot root, Object name) throws OgnlException {
+        ResolutionKey key = new ResolutionKey(root.getTypes(), root.getTypesHash(), name);
+        Resolution resolution = (Resolution) setterResolutions.get(key);
+
+        if (resolution == null) {
+            int index = -1;
+            boolean map = false;
+
+            for (int i = 0; (i < root.size()) && (index < 0); i++) {
+                Object o = root.get(i);
+
+                if (o == null) {
+                    continue;
+                }
+
+                try {
+                    if (OgnlRuntime.hasSetProperty(ognlContext, o, name)) {
+                        index = i;
+                    } else if (o instanceof Map) {
+                        index = i;
+                        map = true;
                     }
                 } catch (IntrospectionException e) {
                     // this is OK if this happens, we'll just keep trying the next
                 }
             }
 
-            return null;
-        } else {
-            return null;
+            resolution = new Resolution(index, map, null);
+            setterResolutions.put(key.weakCopy(), resolution);
         }
+
+        return resolution;
     }
 
     public Object callMethod(Map context, Object target, String name, Object[] objects) throws MethodFailedException {
@@ -520,4 +628,102 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
             return hash;
         }
     }
+
+
+    /**
+     * Cache key of a property resolution, the property name together with the types of the objects on the stack.
+     */
+    /**
+     * The types on a stack and a property name. The hash code of the types is the one cached by the stack, so that
+     * a lookup does not go through the whole stack to compute it. Keys stored in the caches hold the types weakly,
+     * so that the caches do not keep the classes of a redeployed web application, and so its class loader, from
+     * being collected.
+     */
+    static class ResolutionKey {
+        // the types themselves in a lookup key, weak references to them in a stored key
+        private final Object[] types;
+        private final Object name;
+        private final int hash;
+
+        ResolutionKey(Class[] types, int typesHash, Object name) {
+            this(types, name, 31 * name.hashCode() + typesHash);
+        }
+
+        private ResolutionKey(Object[] types, Object name, int hash) {
+            this.types = types;
+            this.name = name;
+            this.hash = hash;
+        }
+
+        /**
+         * @return the key to store in a cache, holding the types weakly
+         */
+        ResolutionKey weakCopy() {
+            Object[] references = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                references[i] = (types[i] == null) ? null : new WeakReference(types[i]);
+            }
+            return new ResolutionKey(references, name, hash);
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ResolutionKey)) {
+                return false;
+            }
+
+            ResolutionKey other = (ResolutionKey) obj;
+
+            if ((hash != other.hash) || !name.equals(other.name) || (types.length != other.types.length)) {
+                return false;
+            }
+
+            if (types == other.types) {
+                return true;
+            }
+
+            for (int i = 0; i < types.length; i++) {
+                Object type = types[i];
+                Object otherType = other.types[i];
+
+                if (type instanceof WeakReference) {
+                    type = ((WeakReference) type).get();
+                    if (type == null) {
+                        // collected, matches nothing
+                        return false;
+                    }
+                }
+                if (otherType instanceof WeakReference) {
+                    otherType = ((WeakReference) otherType).get();
+                    if (otherType == null) {
+                        return false;
+                    }
+                }
+                if (type != otherType) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The stack index a property resolved to (-1 if none), whether the object there is a map the property is put
+     * into, and for getters the indexes of the maps above it that need to be checked for the key.
+     */
+    static class Resolution {
+        final int index;
+        final boolean map;
+        final int[] mapIndexes;
+
+        Resolution(int index, boolean map, int[] mapIndexes) {
+            this.index = index;
+            this.map = map;
+            this.mapIndexes = mapIndexes;
+        }
+    }
 }
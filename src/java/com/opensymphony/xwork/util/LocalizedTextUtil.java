@@ -14,9 +14,15 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.beans.PropertyDescriptor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.InvocationTargetException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
 import java.text.MessageFormat;
 import java.util.*;
 
@@ -68,6 +74,9 @@ import java.util.*;
  * if all your actions subclass ActionSupport.
  * <p/>
  * <!-- END SNIPPET: strutscomparison -->
+ * <p/>
+ * The bundle and key a text is found with when searching the class and package hierarchies is cached per class,
+ * key and locale, unless bundles are reloading, so repeated lookups only interpolate and format the message.
  *
  * @author Jason Carreira
  * @author Mark Woon
@@ -80,16 +89,41 @@ public class LocalizedTextUtil {
 	
 	private static final Log _log = LogFactory.getLog(LocalizedTextUtil.class);
 
+    /**
+     * The maximum number of parsed message formats kept, patterns are cached after <code>${...}</code>
+     * expressions have been evaluated so their number is not bounded by the number of keys.
+     */
+    public static final int DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE = 1000;
+
+    /**
+     * The maximum number of (class, key, locale) lookups whose resolution to a bundle and key is remembered.
+     */
+    public static final int DEFAULT_RESOLVED_TEXT_CACHE_MAX_SIZE = 10000;
+
+    /**
+     * The maximum number of (bundle name, locale, class loader) lookups whose bundle, or absence of one, is
+     * remembered.
+     */
+    public static final int DEFAULT_BUNDLE_CACHE_MAX_SIZE = 10000;
+
     private static List DEFAULT_RESOURCE_BUNDLES = null;
     private static final Log LOG = LogFactory.getLog(LocalizedTextUtil.class);
-    private static boolean reloadBundles = false;
-    private static final Collection misses = new HashSet();
-    private static final Map messageFormats = new HashMap();
+    private static volatile boolean reloadBundles = false;
+    private static final BoundedCache bundles = new BoundedCache(DEFAULT_BUNDLE_CACHE_MAX_SIZE);
+    private static final BoundedCache misses = new BoundedCache(DEFAULT_BUNDLE_CACHE_MAX_SIZE);
+    private static final BoundedCache messageFormats = new BoundedCache(DEFAULT_MESSAGE_FORMAT_CACHE_MAX_SIZE);
+    private static final BoundedCache resolvedTexts = new BoundedCache(DEFAULT_RESOLVED_TEXT_CACHE_MAX_SIZE);
+
+    private static volatile ClassLoader delegatedClassLoader;
 
     /**
-     * @GuardedBy #misses
+     * The number of milliseconds a reloading class loader is reused for before the files it read are checked for
+     * changes.
      */
-    private static ClassLoader delegatedClassLoader;
+    static long reloadCheckInterval = 1000;
+
+    // the reloading class loader of each class loader, softly held so it never pins the class loader it wraps
+    private static final Map reloadingClassLoaders = Collections.synchronizedMap(new WeakHashMap());
 
     static {
         clearDefaultResourceBundles();
@@ -110,11 +144,16 @@ public class LocalizedTextUtil {
     /**
      * Should resorce bundles be reloaded.
      * <p/>
+     * While reloading, bundles are cached only until one of the properties files read for them changes. The files
+     * are then read again, bypassing the caches of {@link ResourceBundle} and of the class loader. Changing the
+     * setting drops the cached bundles.
+     * <p/>
      * In WW see <code>webwork.i18n.reload</code> property.
      * @param reloadBundles  reload bundles?  
      */
     public static void setReloadBundles(boolean reloadBundles) {
         LocalizedTextUtil.reloadBundles = reloadBundles;
+        clearBundleCaches();
     }
 
     /**
@@ -192,7 +231,6 @@ public class LocalizedTextUtil {
 
             ResourceBundle bundle = findResourceBundle(bundleName, locale);
             if (bundle != null) {
-                reloadBundles();
                 try {
                     return bundle.getString(aTextName);
                 } catch (MissingResourceException e) {
@@ -216,8 +254,7 @@ public class LocalizedTextUtil {
     public static String findDefaultText(String aTextName, Locale locale, Object[] params) {
         String defaultText = findDefaultText(aTextName, locale);
         if (defaultText != null) {
-            MessageFormat mf = buildMessageFormat(defaultText, locale);
-            return mf.format(params);
+            return formatMessage(defaultText, locale, params);
         }
         return null;
     }
@@ -233,27 +270,43 @@ public class LocalizedTextUtil {
      * @return  the bundle, <tt>null</tt> if not found.
      */
     public static ResourceBundle findResourceBundle(String aBundleName, Locale locale) {
-        synchronized (misses) {
-            try {
-                if (!misses.contains(aBundleName)) {
-                    return ResourceBundle.getBundle(aBundleName, locale, Thread.currentThread().getContextClassLoader());
-                }
-            } catch (MissingResourceException ex) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 
-                if (delegatedClassLoader != null)
-                {
-                    try
-                    {
-                        return ResourceBundle.getBundle(aBundleName, locale, delegatedClassLoader);
-                    }
-                    catch (MissingResourceException e)
-                    {
-                        misses.add(aBundleName);
-                    }
-                }
-                else
-                {
-                    misses.add(aBundleName);
+        if (reloadBundles) {
+            return loadResourceBundle(aBundleName, locale, classLoader, true);
+        }
+
+        BundleKey key = new BundleKey(aBundleName, locale, classLoader);
+        ResourceBundle bundle = (ResourceBundle) bundles.get(key);
+
+        if (bundle == null && misses.get(key) == null) {
+            bundle = loadResourceBundle(aBundleName, locale, classLoader, false);
+
+            if (bundle != null) {
+                bundles.putIfAbsent(key.weakCopy(), bundle);
+            } else {
+                misses.putIfAbsent(key.weakCopy(), Boolean.TRUE);
+            }
+        }
+
+        return bundle;
+    }
+
+    /**
+     * Loads the bundle from the class loader, then from {@link #delegatedClassLoader} if there is one. When reloading,
+     * the class loaders are wrapped, see {@link #getReloadingClassLoader(ClassLoader)}.
+     */
+    private static ResourceBundle loadResourceBundle(String aBundleName, Locale locale, ClassLoader classLoader, boolean reload) {
+        try {
+            return ResourceBundle.getBundle(aBundleName, locale, reload ? getReloadingClassLoader(classLoader) : classLoader);
+        } catch (MissingResourceException ex) {
+            ClassLoader delegate = delegatedClassLoader;
+
+            if (delegate != null) {
+                try {
+                    return ResourceBundle.getBundle(aBundleName, locale, reload ? getReloadingClassLoader(delegate) : delegate);
+                } catch (MissingResourceException e) {
+                    // not there either
                 }
             }
         }
@@ -261,6 +314,25 @@ public class LocalizedTextUtil {
         return null;
     }
 
+    /**
+     * Returns the reloading class loader wrapping <code>classLoader</code>. The same one is returned until a file it
+     * read has changed, so that {@link ResourceBundle} keeps the bundles loaded through it until then. A new one is
+     * created afterwards, with a fresh entry in the cache of {@link ResourceBundle}.
+     */
+    private static ClassLoader getReloadingClassLoader(ClassLoader classLoader) {
+        synchronized (reloadingClassLoaders) {
+            SoftReference reference = (SoftReference) reloadingClassLoaders.get(classLoader);
+            ReloadingClassLoader reloading = (reference == null) ? null : (ReloadingClassLoader) reference.get();
+
+            if ((reloading == null) || reloading.hasChanged()) {
+                reloading = new ReloadingClassLoader(classLoader);
+                reloadingClassLoaders.put(classLoader, new SoftReference(reloading));
+            }
+
+            return reloading;
+        }
+    }
+
     /**
      * Sets a {@link ClassLoader} to look up the bundle from if none can be found on the current thread's classloader
      *
@@ -268,10 +340,8 @@ public class LocalizedTextUtil {
      */
     public static void setDelegatedClassLoader(final ClassLoader classLoader)
     {
-        synchronized (misses)
-        {
-            delegatedClassLoader = classLoader;
-        }
+        delegatedClassLoader = classLoader;
+        clearBundleCaches();
     }
 
     /**
@@ -281,10 +351,19 @@ public class LocalizedTextUtil {
      */
     public static void clearBundle(final String bundleName)
     {
-        synchronized (misses)
-        {
-            misses.remove(bundleName);
-        }
+        // misses are kept per locale and class loader, dropping them all is simpler and this is rare
+        misses.clear();
+        resolvedTexts.clear();
+    }
+
+    /**
+     * Drops the cached bundles and misses, the bundles are looked up again on next use.
+     */
+    private static void clearBundleCaches() {
+        bundles.clear();
+        misses.clear();
+        resolvedTexts.clear();
+        reloadingClassLoaders.clear();
     }
 
 
@@ -454,7 +533,7 @@ public class LocalizedTextUtil {
         }
 
         // search up class hierarchy
-        String msg = findMessage(aClass, aTextName, indexedTextName, locale, args, null, valueStack);
+        String msg = findMessage(aClass, aTextName, indexedTextName, locale, args, valueStack);
 
         if (msg != null) {
             return msg;
@@ -470,7 +549,7 @@ public class LocalizedTextUtil {
                 Object action = actionInvocation.getAction();
                 Object model = ((ModelDriven) action).getModel();
                 if (model != null) {
-                    msg = findMessage(model.getClass(), aTextName, indexedTextName, locale, args, null, valueStack);
+                    msg = findMessage(model.getClass(), aTextName, indexedTextName, locale, args, valueStack);
                     if (msg != null) {
                         return msg;
                     }
@@ -479,28 +558,10 @@ public class LocalizedTextUtil {
         }
 
         // nothing still? alright, search the package hierarchy now
-        for (Class clazz = aClass;
-             (clazz != null) && !clazz.equals(Object.class);
-             clazz = clazz.getSuperclass()) {
-
-            String basePackageName = clazz.getName();
-            while (basePackageName.lastIndexOf('.') != -1) {
-                basePackageName = basePackageName.substring(0, basePackageName.lastIndexOf('.'));
-                String packageName = basePackageName + ".package";
-                msg = getMessage(packageName, locale, aTextName, valueStack, args);
+        msg = findPackageMessage(aClass, aTextName, indexedTextName, locale, args, valueStack);
 
-                if (msg != null) {
-                    return msg;
-                }
-
-                if (indexedTextName != null) {
-                    msg = getMessage(packageName, locale, indexedTextName, valueStack, args);
-
-                    if (msg != null) {
-                        return msg;
-                    }
-                }
-            }
+        if (msg != null) {
+            return msg;
         }
 
         // see if it's a child property
@@ -670,12 +731,9 @@ public class LocalizedTextUtil {
      */
     public static String findText(ResourceBundle bundle, String aTextName, Locale locale, String defaultMessage, Object[] args, OgnlValueStack valueStack, boolean warnIfNoMessageFound) {
         try {
-            reloadBundles();
-
             String message = TextParseUtil.translateVariables(bundle.getString(aTextName), valueStack);
-            MessageFormat mf = buildMessageFormat(message, locale);
 
-            return mf.format(args);
+            return formatMessage(message, locale, args);
         } catch (MissingResourceException ex) {
         	// ignore
         }
@@ -704,9 +762,7 @@ public class LocalizedTextUtil {
 
             // defaultMessage may be null
             if (message != null) {
-                MessageFormat mf = buildMessageFormat(TextParseUtil.translateVariables(message, valueStack), locale);
-
-                String msg = mf.format(args);
+                String msg = formatMessage(TextParseUtil.translateVariables(message, valueStack), locale, args);
                 result = new GetDefaultMessageReturnArg(msg, found);
             }
         }
@@ -723,17 +779,27 @@ public class LocalizedTextUtil {
             return null;
         }
 
-        reloadBundles();
-
         try {
             String message = TextParseUtil.translateVariables(bundle.getString(key), valueStack);
-            MessageFormat mf = buildMessageFormat(message, locale);
-            return mf.format(args);
+            return formatMessage(message, locale, args);
         } catch (MissingResourceException e) {
             return null;
         }
     }
 
+    /**
+     * Formats the arguments with the given pattern. The parsed patterns are cached but a MessageFormat is not safe
+     * for use by concurrent threads, so the cached format is only used as a template that each call clones.
+     */
+    private static String formatMessage(String pattern, Locale locale, Object[] args) {
+        MessageFormat mf = (MessageFormat) buildMessageFormat(pattern, locale).clone();
+        return mf.format(args);
+    }
+
+    /**
+     * Returns the cached, parsed format for the pattern and locale. The returned instance is shared and must not
+     * be used to format, see {@link #formatMessage(String, Locale, Object[])}.
+     */
     private static MessageFormat buildMessageFormat(String pattern, Locale locale) {
         MessageFormatKey key = new MessageFormatKey(pattern, locale);
         MessageFormat format = (MessageFormat) messageFormats.get(key);
@@ -741,17 +807,96 @@ public class LocalizedTextUtil {
             format = new MessageFormat(pattern);
             format.setLocale(locale);
             format.applyPattern(pattern);
-            messageFormats.put(key, format);
+
+            MessageFormat cached = (MessageFormat) messageFormats.putIfAbsent(key, format);
+            if (cached != null) {
+                format = cached;
+            }
         }
 
         return format;
     }
 
+    /**
+     * Returns true if the named resource bundle has a message for the key.
+     */
+    private static boolean hasMessage(String bundleName, Locale locale, String key) {
+        ResourceBundle bundle = findResourceBundle(bundleName, locale);
+        if (bundle == null) {
+            return false;
+        }
+
+        try {
+            bundle.getString(key);
+            return true;
+        } catch (MissingResourceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Formats the message the resolved text points to, or returns <tt>null</tt> for an unresolved text.
+     */
+    private static String getMessage(ResolvedText resolved, Locale locale, OgnlValueStack valueStack, Object[] args) {
+        if (resolved == ResolvedText.NOT_FOUND) {
+            return null;
+        }
+
+        return getMessage(resolved.bundleName, locale, resolved.key, valueStack, args);
+    }
+
+    /**
+     * Looks up where the text has been resolved before when searching the given way, resolving and caching it if
+     * it has not. Nothing is cached while bundles are reloading as the resolution could change with the bundles.
+     */
+    private static ResolvedText resolve(int search, Class clazz, String key, String indexedKey, Locale locale) {
+        if (reloadBundles) {
+            return resolveUncached(search, clazz, key, indexedKey, locale);
+        }
+
+        ResolvedTextKey cacheKey = new ResolvedTextKey(search, clazz, key, locale);
+        ResolvedText resolved = (ResolvedText) resolvedTexts.get(cacheKey);
+
+        if (resolved == null) {
+            resolved = resolveUncached(search, clazz, key, indexedKey, locale);
+            resolvedTexts.putIfAbsent(cacheKey.weakCopy(), resolved);
+        }
+
+        return resolved;
+    }
+
+    private static ResolvedText resolveUncached(int search, Class clazz, String key, String indexedKey, Locale locale) {
+        ResolvedText resolved;
+
+        if (search == ResolvedTextKey.CLASS_HIERARCHY) {
+            resolved = resolveInClassHierarchy(clazz, key, indexedKey, locale, null);
+        } else {
+            resolved = resolveInPackageHierarchy(clazz, key, indexedKey, locale);
+        }
+
+        return resolved != null ? resolved : ResolvedText.NOT_FOUND;
+    }
+
     /**
      * Traverse up class hierarchy looking for message.  Looks at class, then implemented interface,
      * before going up hierarchy.
      */
-    private static String findMessage(Class clazz, String key, String indexedKey, Locale locale, Object[] args, Set checked, OgnlValueStack valueStack) {
+    private static String findMessage(Class clazz, String key, String indexedKey, Locale locale, Object[] args, OgnlValueStack valueStack) {
+        ResolvedText resolved = resolve(ResolvedTextKey.CLASS_HIERARCHY, clazz, key, indexedKey, locale);
+
+        return getMessage(resolved, locale, valueStack, args);
+    }
+
+    /**
+     * Traverse up the package hierarchy of the class and of its super classes looking for message.
+     */
+    private static String findPackageMessage(Class clazz, String key, String indexedKey, Locale locale, Object[] args, OgnlValueStack valueStack) {
+        ResolvedText resolved = resolve(ResolvedTextKey.PACKAGE_HIERARCHY, clazz, key, indexedKey, locale);
+
+        return getMessage(resolved, locale, valueStack, args);
+    }
+
+    private static ResolvedText resolveInClassHierarchy(Class clazz, String key, String indexedKey, Locale locale, Set checked) {
         if (checked == null) {
             checked = new TreeSet();
         } else if (checked.contains(clazz.getName())) {
@@ -759,36 +904,24 @@ public class LocalizedTextUtil {
         }
 
         // look in properties of this class
-        String msg = getMessage(clazz.getName(), locale, key, valueStack, args);
-
-        if (msg != null) {
-            return msg;
+        if (hasMessage(clazz.getName(), locale, key)) {
+            return new ResolvedText(clazz.getName(), key);
         }
 
-        if (indexedKey != null) {
-            msg = getMessage(clazz.getName(), locale, indexedKey, valueStack, args);
-
-            if (msg != null) {
-                return msg;
-            }
+        if (indexedKey != null && hasMessage(clazz.getName(), locale, indexedKey)) {
+            return new ResolvedText(clazz.getName(), indexedKey);
         }
 
         // look in properties of implemented interfaces
         Class[] interfaces = clazz.getInterfaces();
 
         for (int x = 0; x < interfaces.length; x++) {
-            msg = getMessage(interfaces[x].getName(), locale, key, valueStack, args);
-
-            if (msg != null) {
-                return msg;
+            if (hasMessage(interfaces[x].getName(), locale, key)) {
+                return new ResolvedText(interfaces[x].getName(), key);
             }
 
-            if (indexedKey != null) {
-                msg = getMessage(interfaces[x].getName(), locale, indexedKey, valueStack, args);
-
-                if (msg != null) {
-                    return msg;
-                }
+            if (indexedKey != null && hasMessage(interfaces[x].getName(), locale, indexedKey)) {
+                return new ResolvedText(interfaces[x].getName(), indexedKey);
             }
         }
 
@@ -797,71 +930,42 @@ public class LocalizedTextUtil {
             interfaces = clazz.getInterfaces();
 
             for (int x = 0; x < interfaces.length; x++) {
-                msg = findMessage(interfaces[x], key, indexedKey, locale, args, checked, valueStack);
+                ResolvedText resolved = resolveInClassHierarchy(interfaces[x], key, indexedKey, locale, checked);
 
-                if (msg != null) {
-                    return msg;
+                if (resolved != null) {
+                    return resolved;
                 }
             }
         } else {
             if (!clazz.equals(Object.class) && !clazz.isPrimitive()) {
-                return findMessage(clazz.getSuperclass(), key, indexedKey, locale, args, checked, valueStack);
+                return resolveInClassHierarchy(clazz.getSuperclass(), key, indexedKey, locale, checked);
             }
         }
 
         return null;
     }
 
-    private static void reloadBundles() {
-        if (reloadBundles) {
-            try {
-                clearMap(ResourceBundle.class, null, "cacheList");
-
-                // now, for the true and utter hack, if we're running in tomcat, clear
-                // it's class loader resource cache as well.
-                clearTomcatCache();
-            }
-            catch (Exception e) {
-                LOG.error("Could not reload resource bundles", e);
-            }
-        }
-    }
+    private static ResolvedText resolveInPackageHierarchy(Class aClass, String key, String indexedKey, Locale locale) {
+        for (Class clazz = aClass;
+             (clazz != null) && !clazz.equals(Object.class);
+             clazz = clazz.getSuperclass()) {
 
+            String basePackageName = clazz.getName();
+            while (basePackageName.lastIndexOf('.') != -1) {
+                basePackageName = basePackageName.substring(0, basePackageName.lastIndexOf('.'));
+                String packageName = basePackageName + ".package";
 
-    private static void clearTomcatCache() {
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        // no need for compilation here.
-        Class cl = loader.getClass();
+                if (hasMessage(packageName, locale, key)) {
+                    return new ResolvedText(packageName, key);
+                }
 
-        try {
-            if ("org.apache.catalina.loader.WebappClassLoader".equals(cl.getName())) {
-                clearMap(cl, loader, "resourceEntries");
-            } else {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("class loader " + cl.getName() + " is not tomcat loader.");
+                if (indexedKey != null && hasMessage(packageName, locale, indexedKey)) {
+                    return new ResolvedText(packageName, indexedKey);
                 }
             }
         }
-        catch (Exception e) {
-            LOG.warn("couldn't clear tomcat cache", e);
-        }
-    }
-
-
-    private static void clearMap(Class cl, Object obj, String name)
-            throws NoSuchFieldException, IllegalAccessException, NoSuchMethodException,
-            InvocationTargetException {
-        Field field = cl.getDeclaredField(name);
-        field.setAccessible(true);
-
-        Object cache = field.get(obj);
-
-        synchronized (cache) {
-            Class ccl = cache.getClass();
-            Method clearMethod = ccl.getMethod("clear", new Class[0]);
-            clearMethod.invoke(cache, new Class[0]);
-        }
 
+        return null;
     }
 
     /**
@@ -870,13 +974,8 @@ public class LocalizedTextUtil {
     public static void reset() {
         clearDefaultResourceBundles();
 
-        synchronized (misses) {
-            misses.clear();
-        }
-
-        synchronized (messageFormats) {
-            messageFormats.clear();
-        }
+        clearBundleCaches();
+        messageFormats.clear();
     }
 
     static class MessageFormatKey {
@@ -910,6 +1009,261 @@ public class LocalizedTextUtil {
         }
     }
     
+    /**
+     * The key of a bundle lookup. The keys stored in the caches hold the class loader weakly, so that the caches do
+     * not keep a class loader, such as the one of a redeployed web application, from being collected.
+     */
+    static class BundleKey {
+        final String bundleName;
+        final Locale locale;
+        // the class loader itself in a lookup key, a weak reference to it in a stored key
+        final Object classLoader;
+        final int hashCode;
+
+        BundleKey(String bundleName, Locale locale, ClassLoader classLoader) {
+            this.bundleName = bundleName;
+            this.locale = locale;
+            this.classLoader = classLoader;
+
+            int result = bundleName.hashCode();
+            result = 29 * result + (locale != null ? locale.hashCode() : 0);
+            result = 29 * result + System.identityHashCode(classLoader);
+            this.hashCode = result;
+        }
+
+        private BundleKey(BundleKey key) {
+            this.bundleName = key.bundleName;
+            this.locale = key.locale;
+            this.classLoader = (key.classLoader == null) ? null : new WeakReference(key.classLoader);
+            this.hashCode = key.hashCode;
+        }
+
+        /**
+         * @return the key to store in a cache, holding the class loader weakly
+         */
+        BundleKey weakCopy() {
+            return new BundleKey(this);
+        }
+
+        ClassLoader getClassLoader() {
+            return (ClassLoader) dereference(classLoader);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BundleKey)) return false;
+
+            final BundleKey bundleKey = (BundleKey) o;
+
+            if (hashCode != bundleKey.hashCode) return false;
+            if (!bundleName.equals(bundleKey.bundleName)) return false;
+            if (locale != null ? !locale.equals(bundleKey.locale) : bundleKey.locale != null)
+                return false;
+
+            // a collected class loader matches no lookup
+            ClassLoader loader = getClassLoader();
+            if ((loader == null) && (classLoader != null)) return false;
+            if (loader != bundleKey.getClassLoader()) return false;
+
+            return true;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static Object dereference(Object o) {
+        return (o instanceof WeakReference) ? ((WeakReference) o).get() : o;
+    }
+
+    /**
+     * A class loader delegating to another one whose resources are read without using any cache. Being a new class
+     * loader it also gets a fresh entry in the cache of {@link ResourceBundle}. It remembers the modification time of
+     * the resources it was asked for, a missing resource included, to tell when a bundle loaded through it is out of
+     * date. Only resources that are plain files are seen changing.
+     * <p/>
+     * Resources are intercepted in {@link #getResource(String)}: depending on the JDK, {@link ResourceBundle} reads
+     * properties files either through {@link #getResourceAsStream(String)}, which uses it, or by opening the URL it
+     * returns itself.
+     */
+    static class ReloadingClassLoader extends ClassLoader {
+
+        private static final long MISSING = -1;
+
+        private final Map lastModified = new HashMap();
+        private long lastCheck = System.currentTimeMillis();
+
+        ReloadingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        public URL getResource(String name) {
+            URL url = super.getResource(name);
+            remember(name, getLastModified(url));
+            if (url == null) {
+                return null;
+            }
+
+            try {
+                return new URL(url, url.toExternalForm(), new UncachedURLStreamHandler(url));
+            } catch (IOException e) {
+                LOG.warn("Could not reload resource " + name, e);
+                return url;
+            }
+        }
+
+        public InputStream getResourceAsStream(String name) {
+            URL url = getResource(name);
+            if (url == null) {
+                return null;
+            }
+
+            try {
+                return url.openStream();
+            } catch (IOException e) {
+                LOG.warn("Could not reload resource " + name, e);
+                return null;
+            }
+        }
+
+        /**
+         * @return true if a resource read through this class loader has changed, checking at most once every
+         *         {@link #reloadCheckInterval} milliseconds
+         */
+        synchronized boolean hasChanged() {
+            long now = System.currentTimeMillis();
+            if ((now - lastCheck) < reloadCheckInterval) {
+                return false;
+            }
+            lastCheck = now;
+
+            for (Iterator iterator = lastModified.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry entry = (Map.Entry) iterator.next();
+                if (getLastModified(super.getResource((String) entry.getKey())) != ((Long) entry.getValue()).longValue()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private synchronized void remember(String name, long modified) {
+            lastModified.put(name, new Long(modified));
+        }
+
+        private static long getLastModified(URL url) {
+            if (url == null) {
+                return MISSING;
+            }
+
+            if (!"file".equals(url.getProtocol())) {
+                return 0;
+            }
+
+            try {
+                return new File(new URI(url.toExternalForm())).lastModified();
+            } catch (Exception e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Opens the connections of a resource URL with caching turned off.
+     */
+    static class UncachedURLStreamHandler extends URLStreamHandler {
+
+        private final URL url;
+
+        UncachedURLStreamHandler(URL url) {
+            this.url = url;
+        }
+
+        protected URLConnection openConnection(URL u) throws IOException {
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            return connection;
+        }
+    }
+
+    /**
+     * Where a text has been found: the name of the bundle and the key, which is the indexed form of the key
+     * looked up if only that one was found.
+     */
+    static class ResolvedText {
+        static final ResolvedText NOT_FOUND = new ResolvedText(null, null);
+
+        final String bundleName;
+        final String key;
+
+        ResolvedText(String bundleName, String key) {
+            this.bundleName = bundleName;
+            this.key = key;
+        }
+    }
+
+    static class ResolvedTextKey {
+        static final int CLASS_HIERARCHY = 0;
+        static final int PACKAGE_HIERARCHY = 1;
+
+        final int search;
+        // the class itself in a lookup key, a weak reference to it in a stored key
+        final Object clazz;
+        final String key;
+        final Locale locale;
+        final int hashCode;
+
+        ResolvedTextKey(int search, Class clazz, String key, Locale locale) {
+            this.search = search;
+            this.clazz = clazz;
+            this.key = key;
+            this.locale = locale;
+
+            int result = search;
+            result = 29 * result + clazz.hashCode();
+            result = 29 * result + key.hashCode();
+            result = 29 * result + (locale != null ? locale.hashCode() : 0);
+            this.hashCode = result;
+        }
+
+        private ResolvedTextKey(ResolvedTextKey cacheKey) {
+            this.search = cacheKey.search;
+            this.clazz = new WeakReference(cacheKey.clazz);
+            this.key = cacheKey.key;
+            this.locale = cacheKey.locale;
+            this.hashCode = cacheKey.hashCode;
+        }
+
+        /**
+         * @return the key to store in the cache, holding the class weakly
+         */
+        ResolvedTextKey weakCopy() {
+            return new ResolvedTextKey(this);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ResolvedTextKey)) return false;
+
+            final ResolvedTextKey resolvedTextKey = (ResolvedTextKey) o;
+
+            if (hashCode != resolvedTextKey.hashCode) return false;
+            if (search != resolvedTextKey.search) return false;
+            Object c = dereference(clazz);
+            if ((c == null) || (c != dereference(resolvedTextKey.clazz))) return false;
+            if (!key.equals(resolvedTextKey.key)) return false;
+            if (locale != null ? !locale.equals(resolvedTextKey.locale) : resolvedTextKey.locale != null)
+                return false;
+
+            return true;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+    
     static class GetDefaultMessageReturnArg {
     	String message;
     	boolean foundInBundle;
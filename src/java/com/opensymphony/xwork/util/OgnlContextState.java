@@ -12,63 +12,147 @@ import java.util.Map;
  * Manages variables in the OgnlContext and returns values
  * to be used by the application.
  *
+ * <p/>The contexts of {@link OgnlValueStack}s keep these variables in typed fields
+ * (see {@link XWorkOgnlContext}), which the methods below use directly. Other
+ * contexts keep them in their map.
+ *
  * @author Gabe
  */
 public class OgnlContextState {
 
     public static final String CURRENT_PROPERTY_PATH="current.property.path";
     public static final String FULL_PROPERTY_PATH="current.property.path";
-    private static final String GETTING_BY_KEY_PROPERTY="xwork.getting.by.key.property";
+    static final String GETTING_BY_KEY_PROPERTY="xwork.getting.by.key.property";
 
     private static final String SET_MAP_KEY="set.map.key";
 
     public static boolean isCreatingNullObjects(Map context) {
 		//TODO
-		return getBooleanProperty(InstantiatingNullHandler.CREATE_NULL_OBJECTS, context);
+		return getBooleanProperty(InstantiatingNullHandler.CREATE_NULL_OBJECTS, XWorkOgnlContext.CREATE_NULL_OBJECTS, context);
 	}
 
 	public static void setCreatingNullObjects(Map context, boolean creatingNullObjects) {
-		setBooleanValue(InstantiatingNullHandler.CREATE_NULL_OBJECTS, context, creatingNullObjects);
+		setBooleanValue(InstantiatingNullHandler.CREATE_NULL_OBJECTS, XWorkOgnlContext.CREATE_NULL_OBJECTS, context, creatingNullObjects);
 	}
 
 	public static boolean isGettingByKeyProperty(Map context) {
-		return getBooleanProperty(GETTING_BY_KEY_PROPERTY, context);
+		return getBooleanProperty(GETTING_BY_KEY_PROPERTY, XWorkOgnlContext.GETTING_BY_KEY_PROPERTY, context);
 	}
 	
 	public static void setDenyMethodExecution(Map context, boolean denyMethodExecution) {
-		setBooleanValue(XWorkMethodAccessor.DENY_METHOD_EXECUTION, context, denyMethodExecution);
+		setBooleanValue(XWorkMethodAccessor.DENY_METHOD_EXECUTION, XWorkOgnlContext.DENY_METHOD_EXECUTION, context, denyMethodExecution);
 	}
 	
 	public static boolean isDenyMethodExecution(Map context) {
-		return getBooleanProperty(XWorkMethodAccessor.DENY_METHOD_EXECUTION, context);
+		return getBooleanProperty(XWorkMethodAccessor.DENY_METHOD_EXECUTION, XWorkOgnlContext.DENY_METHOD_EXECUTION, context);
 	}
 
 	public static void setGettingByKeyProperty(Map context, boolean gettingByKeyProperty) {
-		setBooleanValue(GETTING_BY_KEY_PROPERTY, context, gettingByKeyProperty);
+		setBooleanValue(GETTING_BY_KEY_PROPERTY, XWorkOgnlContext.GETTING_BY_KEY_PROPERTY, context, gettingByKeyProperty);
 	}	
 	
 	public static boolean isReportingConversionErrors(Map context) {
-		return getBooleanProperty(XWorkConverter.REPORT_CONVERSION_ERRORS, context);
+		return getBooleanProperty(XWorkConverter.REPORT_CONVERSION_ERRORS, XWorkOgnlContext.REPORT_CONVERSION_ERRORS, context);
 	}
 
 	public static void setReportingConversionErrors(Map context, boolean reportingErrors) {
-		setBooleanValue(XWorkConverter.REPORT_CONVERSION_ERRORS, context, reportingErrors);
+		setBooleanValue(XWorkConverter.REPORT_CONVERSION_ERRORS, XWorkOgnlContext.REPORT_CONVERSION_ERRORS, context, reportingErrors);
 	}
 
 	public static Class getLastBeanClassAccessed(Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return (Class) ((XWorkOgnlContext) context).getSlot(XWorkOgnlContext.LAST_BEAN_CLASS_ACCESSED);
+		}
 		return (Class)context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
 	}
 
 	public static void setLastBeanPropertyAccessed(Map context, String property) {
-		context.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, property);
+		if (context instanceof XWorkOgnlContext) {
+			((XWorkOgnlContext) context).setSlot(XWorkOgnlContext.LAST_BEAN_PROPERTY_ACCESSED, property);
+		} else {
+			context.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, property);
+		}
 	}
 
 	public static String getLastBeanPropertyAccessed(Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return (String) ((XWorkOgnlContext) context).getSlot(XWorkOgnlContext.LAST_BEAN_PROPERTY_ACCESSED);
+		}
 		return (String)context.get(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED);
 	}
 
 	public static void setLastBeanClassAccessed(Map context, Class clazz) {
-		context.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, clazz);
+		if (context instanceof XWorkOgnlContext) {
+			((XWorkOgnlContext) context).setSlot(XWorkOgnlContext.LAST_BEAN_CLASS_ACCESSED, clazz);
+		} else {
+			context.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, clazz);
+		}
+	}
+
+	/**
+	 * Records the bean property just accessed, as the property accessors do on
+	 * every access: its class and name and the current property path.
+	 *
+	 * @param context
+	 * @param clazz the class of the bean accessed
+	 * @param name the name of the property accessed
+	 */
+	public static void updateLastBeanAccessed(Map context, Class clazz, Object name) {
+		if (context instanceof XWorkOgnlContext) {
+			XWorkOgnlContext ognlContext = (XWorkOgnlContext) context;
+			ognlContext.setSlot(XWorkOgnlContext.LAST_BEAN_CLASS_ACCESSED, clazz);
+			ognlContext.setSlot(XWorkOgnlContext.LAST_BEAN_PROPERTY_ACCESSED, name.toString());
+			ognlContext.appendToCurrentPropertyPath(name);
+		} else {
+			context.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, clazz);
+			context.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, name.toString());
+			updateCurrentPropertyPath(context, name);
+		}
+	}
+
+	/**
+	 * Gets the class of the property last linked by {@link OgnlValueStack#link(Map, Class, String)}.
+	 *
+	 * @param context
+	 */
+	public static Class getLinkClass(Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return ((XWorkOgnlContext) context).getLinkClass();
+		}
+		Object[] link = (Object[]) context.get(XWorkOgnlContext.LINK);
+		return (link == null) ? null : (Class) link[0];
+	}
+
+	/**
+	 * Gets the name of the property last linked by {@link OgnlValueStack#link(Map, Class, String)}.
+	 *
+	 * @param context
+	 */
+	public static String getLinkName(Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return ((XWorkOgnlContext) context).getLinkName();
+		}
+		Object[] link = (Object[]) context.get(XWorkOgnlContext.LINK);
+		return (link == null) ? null : (String) link[1];
+	}
+
+	/**
+	 * @param context
+	 * @return true if a property has been linked by {@link OgnlValueStack#link(Map, Class, String)}
+	 */
+	public static boolean hasLink(Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return ((XWorkOgnlContext) context).hasLink();
+		}
+		return context.get(XWorkOgnlContext.LINK) != null;
+	}
+
+	static void setLink(Map context, Class clazz, String name) {
+		if (context instanceof XWorkOgnlContext) {
+			((XWorkOgnlContext) context).setLink(clazz, name);
+		} else {
+			context.put(XWorkOgnlContext.LINK, new Object[]{clazz, name});
+		}
 	}
 	/**
 	 * Gets the current property path but not completely.
@@ -83,19 +167,31 @@ public class OgnlContextState {
 	 * @param context
 	 */
 	public static String getCurrentPropertyPath(Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return ((XWorkOgnlContext) context).getCurrentPropertyPath();
+		}
 		return (String)context.get(CURRENT_PROPERTY_PATH);
 	}
 
 	public static String getFullPropertyPath(Map context) {
-		return (String)context.get(FULL_PROPERTY_PATH);
+		return getCurrentPropertyPath(context);
 	}
 
 	public static void setFullPropertyPath(Map context, String path) {
-		context.put(FULL_PROPERTY_PATH, path);
-
+		if (context instanceof XWorkOgnlContext) {
+			((XWorkOgnlContext) context).setCurrentPropertyPath(path);
+		} else {
+			context.put(FULL_PROPERTY_PATH, path);
+		}
 	}
 
 	public static void updateCurrentPropertyPath(Map context, Object name) {
+		if (context instanceof XWorkOgnlContext) {
+			if (name!=null) {
+				((XWorkOgnlContext) context).appendToCurrentPropertyPath(name);
+			}
+			return;
+		}
 		String currentPath=getCurrentPropertyPath(context);
 		if (name!=null) {
 			if (currentPath!=null) {
@@ -124,25 +220,36 @@ public class OgnlContextState {
 		return (Map)mapOfSetMaps.get(path);
 	}
 
-	private static boolean getBooleanProperty(String property, Map context) {
+	private static boolean getBooleanProperty(String property, int slot, Map context) {
+		if (context instanceof XWorkOgnlContext) {
+			return ((XWorkOgnlContext) context).isFlagSet(slot);
+		}
 		Boolean myBool=(Boolean)context.get(property);
 		return (myBool==null)?false:myBool.booleanValue();
 	}
 
-	private static void setBooleanValue(String property, Map context, boolean value) {
-		context.put(property, new Boolean(value));
+	private static void setBooleanValue(String property, int slot, Map context, boolean value) {
+		if (context instanceof XWorkOgnlContext) {
+			((XWorkOgnlContext) context).setFlag(slot, value);
+		} else {
+			context.put(property, value ? Boolean.TRUE : Boolean.FALSE);
+		}
 	}
 
 	/**
 	 *
 	 */
 	public static void clearCurrentPropertyPath(Map context) {
-		context.put(CURRENT_PROPERTY_PATH, null);
-
+		setFullPropertyPath(context, null);
 	}
 
 
     public static void clear(Map context) {
+        if (context instanceof XWorkOgnlContext) {
+            ((XWorkOgnlContext) context).clearEvaluationState();
+            return;
+        }
+
         context.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED,null);
         context.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED,null);
 
@@ -6,6 +6,7 @@ package com.opensymphony.xwork.util;
 
 import com.opensymphony.xwork.XWorkConstants;
 import com.opensymphony.xwork.XworkException;
+import com.opensymphony.xwork.config.Configuration;
 import com.opensymphony.xwork.config.ConfigurationManager;
 import ognl.*;
 import ognl.enhance.ExpressionAccessor;
@@ -17,6 +18,7 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -72,6 +74,26 @@ import java.util.Map;
  *
  * <!-- END SNIPPET: javadoc3 -->
  *
+ * Parsed expressions are kept in a size bounded cache (see {@link BoundedCache}) so that memory stays flat even
+ * when expressions, eg. parameter names, come from untrusted input. The maximum number of cached expressions
+ * defaults to {@value #DEFAULT_EXPRESSION_CACHE_MAX_SIZE} and may be changed with the "ognlExpressionCacheMaxSize"
+ * parameter in xwork.xml, a value of zero or less leaves the cache unbounded. The same limit applies to the cache of
+ * compiled expression accessors used when "useOgnlEnhancement" is turned on, those are kept per expression and per
+ * type of root object (the types of all objects for a {@link CompoundRoot}) together with the expressions that
+ * failed to compile. A failure may come from the values met, eg. a <tt>null</tt> intermediate property, rather than
+ * from the expression itself, so compilation is attempted again once a failure is
+ * {@value #COMPILE_RETRY_INTERVAL} milliseconds old.
+ *
+ * <pre>
+ * &lt;xwork&gt;
+ *    &lt;parameters&gt;
+ *      &lt;parameter name="ognlExpressionCacheMaxSize" value="5000" /&gt;
+ *      ...
+ *    &lt;/parameters&gt;
+ *    ...
+ *  &lt;/xwork&gt;
+ * </pre>
+ *
  *
  * @author Jason Carreira
  * @author tmjee
@@ -79,8 +101,22 @@ import java.util.Map;
  */
 public class OgnlUtil {
 
+    /**
+     * Maximum number of parsed expressions cached unless configured otherwise through the
+     * {@link XWorkConstants#XWORK_OGNL_EXPRESSION_CACHE_MAX_SIZE} parameter.
+     */
+    public static final int DEFAULT_EXPRESSION_CACHE_MAX_SIZE = 10000;
+
     private static final Log log = LogFactory.getLog(OgnlUtil.class);
-    private static HashMap parsedExpressions = new HashMap();
+    private static final BoundedCache parsedExpressions = new BoundedCache(DEFAULT_EXPRESSION_CACHE_MAX_SIZE);
+    private static final BoundedCache compiledAccessors = new BoundedCache(DEFAULT_EXPRESSION_CACHE_MAX_SIZE);
+
+    /**
+     * Number of milliseconds after which an expression that failed to compile for a type of root is compiled again.
+     */
+    public static final long COMPILE_RETRY_INTERVAL = 60000;
+
+    static long compileRetryInterval = COMPILE_RETRY_INTERVAL;
     private static HashMap beanInfoCache = new HashMap();
 
     private static Boolean useOgnlEnhancement = null;
@@ -239,13 +275,17 @@ public class OgnlUtil {
      */
     public static void setValue(String name, Map context, Object root, Object value) throws OgnlException {
         if (isUseOgnlEnhancement()) {
-            try {
-                Node node = Ognl.compileExpression((OgnlContext) context, root, name);
-                node.getAccessor().set((OgnlContext) context, root, value);
-                return;
-            }
-            catch(Exception e) {
-                log.warn("unable to set value using OGNL expression compilation mode, falling back to expression parsing", e);
+            ExpressionAccessor accessor = getCompiledAccessor(name, context, root);
+            if (accessor != null) {
+                try {
+                    accessor.set((OgnlContext) context, root, value);
+                    return;
+                }
+                catch(Exception e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("unable to set value using OGNL expression compilation mode, falling back to expression parsing", e);
+                    }
+                }
             }
         }
         Ognl.setValue(compile(name), context, root, value);
@@ -264,22 +304,26 @@ public class OgnlUtil {
      */
     public static Object getValue(String name, Map context, Object root) throws OgnlException {
         if (isUseOgnlEnhancement()) {
-            try {
-                Node node = Ognl.compileExpression((OgnlContext)context, root, name);
-                Object result = node.getAccessor().get((OgnlContext)context, root);
-
-                // If we can't get the value with Ognl Enhancement, let's fall back to the default
-                // Ognl without-Enhancement, cause
-                //       node.getAccessor().get(...)
-                // only applies to expression that follow JavaBeans spec. that's how it works, so
-                // expression like 'getText(...)' will return null in this case as it's not following
-                // JavaBeans spec.
-                if (result != null) {
-                    return result;
-                }                 
-            }
-            catch(Exception e) {
-                log.warn("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e); 
+            ExpressionAccessor accessor = getCompiledAccessor(name, context, root);
+            if (accessor != null) {
+                try {
+                    Object result = accessor.get((OgnlContext)context, root);
+
+                    // If we can't get the value with Ognl Enhancement, let's fall back to the default
+                    // Ognl without-Enhancement, cause
+                    //       node.getAccessor().get(...)
+                    // only applies to expression that follow JavaBeans spec. that's how it works, so
+                    // expression like 'getText(...)' will return null in this case as it's not following
+                    // JavaBeans spec.
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                catch(Exception e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+                    }
+                }
             }
         }
         return Ognl.getValue(compile(name), context, root);
@@ -287,12 +331,16 @@ public class OgnlUtil {
 
     public static Object getValue(String name, Map context, Object root, Class resultType) throws OgnlException {
         if (isUseOgnlEnhancement()) {
-            try {
-                Node node = Ognl.compileExpression((OgnlContext)context, root, name);
-                return node.getAccessor().get((OgnlContext)context, root);
-            }
-            catch(Exception e) {
-                log.warn("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+            ExpressionAccessor accessor = getCompiledAccessor(name, context, root);
+            if (accessor != null) {
+                try {
+                    return accessor.get((OgnlContext)context, root);
+                }
+                catch(Exception e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+                    }
+                }
             }
         }
         return Ognl.getValue(compile(name), context, root, resultType);
@@ -306,16 +354,113 @@ public class OgnlUtil {
      * @throws OgnlException
      */
     public static Object compile(String expression) throws OgnlException {
-        synchronized (parsedExpressions) {
-            Object o = parsedExpressions.get(expression);
+        BoundedCache cache = getExpressionCache();
+        Object o = cache.get(expression);
+
+        if (o == null) {
+            // parsing twice under contention is cheaper than serializing every lookup
+            o = Ognl.parseExpression(expression);
+            Object existing = cache.putIfAbsent(expression, o);
+            if (existing != null) {
+                o = existing;
+            }
+        }
 
-            if (o == null) {
-                o = Ognl.parseExpression(expression);
-                parsedExpressions.put(expression, o);
+        return o;
+    }
+
+    /**
+     * Returns the cache of parsed expressions used by {@link #compile(String)}, mainly to monitor its hit, miss
+     * and eviction counts.
+     *
+     * @return the parsed expression cache
+     */
+    public static BoundedCache getExpressionCache() {
+        return parsedExpressions;
+    }
+
+    /**
+     * Returns the cache of compiled expression accessors used when {@link #isUseOgnlEnhancement()} is on, mainly
+     * to monitor its hit, miss and eviction counts.
+     *
+     * @return the compiled expression accessor cache
+     */
+    public static BoundedCache getCompiledAccessorCache() {
+        return compiledAccessors;
+    }
+
+    /**
+     * Returns the compiled accessor of the OGNL expression <code>expression</code> for the shape of <code>root</code>,
+     * compiling and caching it on first use. Expressions that cannot be compiled are remembered as well, so that
+     * compilation is only attempted again once the failure is {@link #compileRetryInterval} milliseconds old.
+     *
+     * @param expression the OGNL expression
+     * @param context    the OGNL context used if the expression needs to be compiled
+     * @param root       the root object the expression is evaluated against
+     * @return the compiled accessor or <tt>null</tt> if the expression cannot be compiled against such a root
+     */
+    static ExpressionAccessor getCompiledAccessor(String expression, Map context, Object root) {
+        BoundedCache cache = getCompiledAccessorCache();
+        CompiledExpressionKey key = new CompiledExpressionKey(expression, root);
+        Object accessor = cache.get(key);
+        CompileFailure failure = (accessor instanceof CompileFailure) ? (CompileFailure) accessor : null;
+
+        if ((failure != null) && !failure.isExpired()) {
+            return null;
+        }
+
+        if (accessor == null || failure != null) {
+            accessor = null;
+            try {
+                Node node = Ognl.compileExpression((OgnlContext) context, root, expression);
+                accessor = node.getAccessor();
+            }
+            catch(Exception e) {
+                if (failure == null) {
+                    log.warn("unable to compile OGNL expression ["+expression+"], expression parsing will be used for it for now", e);
+                } else if (log.isDebugEnabled()) {
+                    log.debug("still unable to compile OGNL expression ["+expression+"]", e);
+                }
+            }
+            if (accessor == null) {
+                accessor = new CompileFailure(System.currentTimeMillis() + compileRetryInterval);
             }
 
-            return o;
+            if (failure != null) {
+                cache.put(key, accessor);
+            } else {
+                Object existing = cache.putIfAbsent(key, accessor);
+                if (existing != null) {
+                    accessor = existing;
+                }
+            }
+        }
+
+        return (accessor instanceof CompileFailure) ? null : (ExpressionAccessor) accessor;
+    }
+
+    /**
+     * Sizes the expression caches as the {@link XWorkConstants#XWORK_OGNL_EXPRESSION_CACHE_MAX_SIZE} parameter of
+     * <code>configuration</code> says, or to {@link #DEFAULT_EXPRESSION_CACHE_MAX_SIZE} if it is not set. This is
+     * called once the configuration has been fully (re)loaded, as the caches are used while it is being loaded.
+     *
+     * @param configuration the configuration that has just been loaded
+     */
+    public static void configureExpressionCaches(Configuration configuration) {
+        int maxSize = DEFAULT_EXPRESSION_CACHE_MAX_SIZE;
+        String value = configuration.getParameter(XWorkConstants.XWORK_OGNL_EXPRESSION_CACHE_MAX_SIZE);
+
+        if (value != null) {
+            try {
+                maxSize = Integer.parseInt(value.trim());
+            }
+            catch(NumberFormatException e) {
+                log.warn("Failed to get xwork parameter ["+ XWorkConstants.XWORK_OGNL_EXPRESSION_CACHE_MAX_SIZE+"] assuming "+DEFAULT_EXPRESSION_CACHE_MAX_SIZE, e);
+            }
         }
+
+        parsedExpressions.setMaxSize(maxSize);
+        compiledAccessors.setMaxSize(maxSize);
     }
 
     /**
@@ -379,16 +524,18 @@ public class OgnlUtil {
                             // === 1] get value
                             Object value = null;
                             boolean tryExpressionParsing = true;
-                            if (isUseOgnlEnhancement()) {
+                            ExpressionAccessor accessor = isUseOgnlEnhancement() ? getCompiledAccessor(fromPd.getName(), contextFrom, from) : null;
+                            if (accessor != null) {
                                 try {
-                                    Node node = Ognl.compileExpression((OgnlContext)contextFrom, from, fromPd.getName());
-                                    value = node.getAccessor().get((OgnlContext)contextFrom, from);
+                                    value = accessor.get((OgnlContext)contextFrom, from);
                                     tryExpressionParsing = false;
                                 }
                                 catch(Exception e) {
                                     // let's try parsing ognl expression instead
                                     tryExpressionParsing = true;
-                                    log.warn("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+                                    if (log.isDebugEnabled()) {
+                                        log.debug("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+                                    }
                                 }
                             }
                             if (tryExpressionParsing) {
@@ -399,16 +546,18 @@ public class OgnlUtil {
 
                             // === 2] set value
                             tryExpressionParsing = true;
-                            if (isUseOgnlEnhancement()) {
+                            accessor = isUseOgnlEnhancement() ? getCompiledAccessor(fromPd.getName(), contextTo, to) : null;
+                            if (accessor != null) {
                                 try {
-                                    Node node = Ognl.compileExpression((OgnlContext)contextTo, to, fromPd.getName());
-                                    node.getAccessor().set((OgnlContext)contextTo, to, value);
+                                    accessor.set((OgnlContext)contextTo, to, value);
                                     tryExpressionParsing = false;
                                 }
                                 catch(Exception e) {
                                     // let's try parsing ognl expression instead
                                     tryExpressionParsing = true;
-                                    log.warn("unable to set value using OGNL expression compilation mode, falling back to expression parsing", e);
+                                    if (log.isDebugEnabled()) {
+                                        log.debug("unable to set value using OGNL expression compilation mode, falling back to expression parsing", e);
+                                    }
                                 }
                             }
                             if (tryExpressionParsing) {
@@ -476,16 +625,18 @@ public class OgnlUtil {
 
                 Object value = null;
                 boolean tryExpressionParsing = true;
-                if (isUseOgnlEnhancement()) {
+                ExpressionAccessor accessor = isUseOgnlEnhancement() ? getCompiledAccessor(propertyName, sourceMap, source) : null;
+                if (accessor != null) {
                     try {
-                        Node node = Ognl.compileExpression((OgnlContext)sourceMap, source, propertyName);
-                        value = node.getAccessor().get((OgnlContext)sourceMap, source);
+                        value = accessor.get((OgnlContext)sourceMap, source);
                         tryExpressionParsing=false;
                     }
                     catch(Exception e) {
                         // let's try expression parsing
                         tryExpressionParsing = true;
-                        log.warn("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+                        if (log.isDebugEnabled()) {
+                            log.debug("unable to get value using OGNL expression compilation mode, falling back to expression parsing", e);
+                        }
                     }
                 }
                 if (tryExpressionParsing) {
@@ -572,4 +723,64 @@ public class OgnlUtil {
         }
         return useOgnlEnhancement.booleanValue();
     }
+
+
+    /**
+     * Cache key of a compiled expression accessor, compiled accessors depend on the expression as well as on the
+     * types of the objects found at the root when compiling, for a {@link CompoundRoot} this is the type of every
+     * object on it.
+     */
+    static class CompiledExpressionKey {
+        private final String expression;
+        private final Class rootType;
+        private final Class[] stackTypes;
+        private final int hash;
+
+        CompiledExpressionKey(String expression, Object root) {
+            this.expression = expression;
+            this.rootType = (root == null) ? null : root.getClass();
+
+            // the types cached by the root itself, a modified root caches a new array rather than changing this one
+            this.stackTypes = (root instanceof CompoundRoot) ? ((CompoundRoot) root).getTypes() : null;
+
+            int h = 31 * expression.hashCode() + ((rootType == null) ? 0 : rootType.hashCode());
+            if (stackTypes != null) {
+                h = 31 * h + ((CompoundRoot) root).getTypesHash();
+            }
+            hash = h;
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CompiledExpressionKey)) {
+                return false;
+            }
+
+            CompiledExpressionKey other = (CompiledExpressionKey) obj;
+
+            return (hash == other.hash) && (rootType == other.rootType) && expression.equals(other.expression)
+                    && Arrays.equals(stackTypes, other.stackTypes);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Cached in place of the accessor of an expression that failed to compile, until the failure expires.
+     */
+    private static class CompileFailure {
+        private final long expiry;
+
+        CompileFailure(long expiry) {
+            this.expiry = expiry;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiry;
+        }
+    }
 }
@@ -30,6 +30,7 @@ public class OgnlValueStack implements Serializable {
 	public static final String VALUE_STACK = "com.opensymphony.xwork.util.OgnlValueStack.ValueStack";
     public static final String REPORT_ERRORS_ON_NO_PROP = "com.opensymphony.xwork.util.OgnlValueStack.ReportErrorsOnNoProp";
     private static CompoundRootAccessor accessor;
+    private static volatile OgnlContext contextTemplate;
     private static Log LOG = LogFactory.getLog(OgnlValueStack.class);
 
     static {
@@ -50,16 +51,14 @@ public class OgnlValueStack implements Serializable {
         OgnlRuntime.setMethodAccessor(Object.class, new XWorkMethodAccessor());
         OgnlRuntime.setMethodAccessor(CompoundRoot.class, accessor);
         OgnlRuntime.setNullHandler(Object.class, new InstantiatingNullHandler());
+        contextTemplate = null;
     }
 
     public static class ObjectAccessor extends ObjectPropertyAccessor {
         public Object getProperty(Map map, Object o, Object o1) throws OgnlException {
             Object obj = super.getProperty(map, o, o1);
             link(map, o.getClass(), (String) o1);
-
-            map.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, o.getClass());
-            map.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, o1.toString());
-            OgnlContextState.updateCurrentPropertyPath(map, o1);
+            OgnlContextState.updateLastBeanAccessed(map, o.getClass(), o1);
             return obj;
         }
 
@@ -69,7 +68,7 @@ public class OgnlValueStack implements Serializable {
     }
 
     public static void link(Map context, Class clazz, String name) {
-        context.put("__link", new Object[]{clazz, name});
+        OgnlContextState.setLink(context, clazz, name);
     }
 
 
@@ -80,8 +79,9 @@ public class OgnlValueStack implements Serializable {
 
 
     public OgnlValueStack() {
-        setRoot(new CompoundRoot());
-        push(DefaultTextProvider.INSTANCE);
+        CompoundRoot compoundRoot = new CompoundRoot();
+        compoundRoot.add(DefaultTextProvider.INSTANCE);
+        setRoot(compoundRoot);
     }
 
     public OgnlValueStack(OgnlValueStack vs) {
@@ -332,13 +332,68 @@ public class OgnlValueStack implements Serializable {
         return root.size();
     }
 
+    /**
+     * Empties this stack so that it can be used again as if it had just been created: the root only holds the
+     * {@link DefaultTextProvider}, the context only holds this stack and the default type and expression overrides
+     * are unset. The root and context instances are kept.
+     */
+    public void clear() {
+        root.clear();
+        root.add(DefaultTextProvider.INSTANCE);
+        defaultType = null;
+        overrides = null;
+
+        // clearing an OGNL context also resets its class resolver, converter and member access
+        OgnlContext ognlContext = (OgnlContext) context;
+        ognlContext.clear();
+
+        OgnlContext template = getContextTemplate();
+        ognlContext.setClassResolver(template.getClassResolver());
+        ognlContext.setTypeConverter(template.getTypeConverter());
+        ognlContext.setMemberAccess(template.getMemberAccess());
+        ognlContext.setTraceEvaluations(template.getTraceEvaluations());
+        ognlContext.setKeepLastEvaluation(template.getKeepLastEvaluation());
+        ognlContext.setRoot(root);
+        context.put(VALUE_STACK, this);
+    }
+
     private void setRoot(CompoundRoot compoundRoot) {
         this.root = compoundRoot;
-        this.context = Ognl.createDefaultContext(this.root, accessor, XWorkConverter.getInstance());
+        this.context = createContext(this.root);
         context.put(VALUE_STACK, this);
-        Ognl.setClassResolver(context, accessor);
-        ((OgnlContext) context).setTraceEvaluations(false);
-        ((OgnlContext) context).setKeepLastEvaluation(false);
+    }
+
+    /**
+     * Creates the OGNL context of a stack from a template holding the class resolver, type converter and member
+     * access every stack uses, so that creating a stack, as every request does, only copies them into a new context
+     * instead of going through {@link Ognl#createDefaultContext(Object, ClassResolver, TypeConverter)}. The template
+     * is built on first use, after {@link #reset()} and whenever the {@link XWorkConverter} instance changes.
+     *
+     * @param root the root of the new context
+     * @return a new context for <code>root</code>
+     */
+    private static OgnlContext createContext(CompoundRoot root) {
+        OgnlContext template = getContextTemplate();
+        OgnlContext context = new XWorkOgnlContext(template.getClassResolver(), template.getTypeConverter(), template.getMemberAccess());
+        context.setTraceEvaluations(template.getTraceEvaluations());
+        context.setKeepLastEvaluation(template.getKeepLastEvaluation());
+        context.setRoot(root);
+
+        return context;
+    }
+
+    private static OgnlContext getContextTemplate() {
+        XWorkConverter converter = XWorkConverter.getInstance();
+        OgnlContext template = contextTemplate;
+
+        if ((template == null) || (template.getTypeConverter() != converter)) {
+            template = new XWorkOgnlContext(accessor, converter, null);
+            template.setTraceEvaluations(false);
+            template.setKeepLastEvaluation(false);
+            contextTemplate = template;
+        }
+
+        return template;
     }
 
     private Object readResolve() {
@@ -10,6 +10,7 @@ import java.lang.reflect.Member;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.DateFormat;
+import java.text.Format;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.ParsePosition;
@@ -17,6 +18,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -28,6 +30,7 @@ import java.util.TreeSet;
 
 import ognl.DefaultTypeConverter;
 import ognl.Ognl;
+import ognl.OgnlOps;
 import ognl.TypeConverter;
 
 import com.opensymphony.xwork.ActionContext;
@@ -66,6 +69,41 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
     private static final String MILLISECOND_FORMAT = ".SSS";
     private static final String RFC3339_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
 
+    private static final int TIME_MEDIUM = 0;
+    private static final int DATE_SHORT = 1;
+    private static final int DATETIME_SHORT_LONG = 2;
+    private static final int DATETIME_SHORT_MEDIUM = 3;
+    private static final int DATETIME_SHORT_SHORT = 4;
+    private static final int DATETIME_SHORT_MEDIUM_MILLIS = 5;
+    private static final int TIMESTAMP_OUTPUT = 6;
+    private static final int RFC3339 = 7;
+    private static final int NUMBER = 8;
+    private static final int INTEGER = 9;
+    private static final int FORMAT_KINDS = 10;
+
+    private static final int[] TIMESTAMP_PARSE_FORMATS = {DATETIME_SHORT_MEDIUM_MILLIS, DATETIME_SHORT_MEDIUM, DATE_SHORT, RFC3339};
+    private static final int[] DATE_PARSE_FORMATS = {DATETIME_SHORT_LONG, DATETIME_SHORT_MEDIUM, DATETIME_SHORT_SHORT, RFC3339}; //added RFC 3339 date format (XW-473)
+
+    /**
+     * The formats for each kind and locale, with their patterns already derived. They are only used as prototypes
+     * for the copies each thread works with, as formats are not safe for use by concurrent threads.
+     * <p/>
+     * Date formats keep the default time zone of the time they were created: changing the default time zone at
+     * runtime is not seen by the cached formats.
+     */
+    private static final BoundedCache prototypeFormats = new BoundedCache(1000);
+
+    /**
+     * The formats of the current thread, a Map of Locale to an array of Format indexed by kind, the lenient and the
+     * strict format of a kind next to each other. Only JDK types are held, so that pooled threads outliving a web
+     * application do not keep its class loader from being collected.
+     */
+    private static final ThreadLocal threadFormats = new ThreadLocal() {
+        protected Object initialValue() {
+            return new HashMap();
+        }
+    };
+
     public Object convertValue(Map context, Object o, Member member, String s, Object value, Class toType) {
         Object result = null;
 
@@ -80,6 +118,8 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
             result = doConvertToBoolean(value);
         } else if (toType == Boolean.class) {
             result = doConvertToBoolean(value);
+        } else if (toType == int.class || toType == long.class || toType == double.class) {
+            result = doConvertToPrimitive(value, toType);
         } else if (toType.isArray()) {
             result = doConvertToArray(context, o, member, s, value, toType);
         } else if (Date.class.isAssignableFrom(toType)) {
@@ -179,6 +219,14 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         Object result = null;
         Class componentType = toType.getComponentType();
 
+        if (componentType != null && componentType.isPrimitive() && value instanceof String[]) {
+            result = doConvertToPrimitiveArray((String[]) value, componentType);
+
+            if (result != null) {
+                return result;
+            }
+        }
+
         if (componentType != null) {
             TypeConverter converter = Ognl.getTypeConverter(context);
 
@@ -199,6 +247,92 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         return result;
     }
 
+    /**
+     * Converts a String straight to an int, long or double without going through the generic conversion, parsing
+     * the same way as {@link ognl.OgnlOps} does. Returns <tt>null</tt> for anything else, empty Strings included,
+     * leaving them to the generic conversion.
+     */
+    private Object doConvertToPrimitive(Object value, Class toType) {
+        if (!(value instanceof String) || ((String) value).length() == 0) {
+            return null;
+        }
+
+        if (toType == int.class) {
+            return new Integer((int) OgnlOps.longValue(value));
+        } else if (toType == long.class) {
+            return new Long(OgnlOps.longValue(value));
+        } else {
+            return new Double(OgnlOps.doubleValue(value));
+        }
+    }
+
+    /**
+     * Converts String values straight into an int[], long[], double[] or boolean[], without converting each element
+     * through the value stack's TypeConverter and setting it reflectively. The elements are parsed the same way as
+     * they would be one by one, a <tt>null</tt> or empty element fails the conversion as it would have.
+     * Returns <tt>null</tt> for other component types.
+     */
+    private Object doConvertToPrimitiveArray(String[] values, Class componentType) {
+        if (componentType == int.class) {
+            int[] result = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = (int) OgnlOps.longValue(checkArrayElement(values[i], componentType));
+            }
+            return result;
+        } else if (componentType == long.class) {
+            long[] result = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = OgnlOps.longValue(checkArrayElement(values[i], componentType));
+            }
+            return result;
+        } else if (componentType == double.class) {
+            double[] result = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = OgnlOps.doubleValue(checkArrayElement(values[i], componentType));
+            }
+            return result;
+        } else if (componentType == boolean.class) {
+            boolean[] result = new boolean[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = "true".equalsIgnoreCase(checkArrayElement(values[i], componentType));
+            }
+            return result;
+        }
+
+        return null;
+    }
+
+    private String checkArrayElement(String value, Class componentType) {
+        if (value == null || (componentType != boolean.class && value.length() == 0)) {
+            throw new XworkException("Cannot create type " + componentType + " from value " + value);
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the value of a String made of at most 18 ASCII digits, which every locale parses the same way,
+     * or -1 if the String has any other form.
+     */
+    private long parsePlainDigits(String value) {
+        int length = value.length();
+
+        if (length == 0 || length > 18) {
+            return -1;
+        }
+
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
     private Object doConvertToCharacter(Object value) {
         if (value instanceof String) {
             String cStr = (String) value;
@@ -280,58 +414,21 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
             String sa = (String) value;
             Locale locale = getLocale(context);
 
-            DateFormat df = null;
+            int kind = -1;
             if (java.sql.Time.class == toType) {
-                df = DateFormat.getTimeInstance(DateFormat.MEDIUM, locale);
+                kind = TIME_MEDIUM;
             } else if (java.sql.Timestamp.class == toType) {
-                Date check = null;
-                SimpleDateFormat dtfmt = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT,
-                        DateFormat.MEDIUM,
-                        locale);
-                SimpleDateFormat fullfmt = new SimpleDateFormat(dtfmt.toPattern() + MILLISECOND_FORMAT,
-                        locale);
-
-                SimpleDateFormat dfmt = (SimpleDateFormat) DateFormat.getDateInstance(DateFormat.SHORT,
-                        locale);
-
-                SimpleDateFormat rfc3339Format = new SimpleDateFormat(RFC3339_FORMAT);
-
-                SimpleDateFormat[] fmts = {fullfmt, dtfmt, dfmt, rfc3339Format};
-                for (int i = 0; i < fmts.length; i++) {
-                    try {
-                        check = fmts[i].parse(sa);
-                        df = fmts[i];
-                        if (check != null) {
-                            break;
-                        }
-                    } catch (ParseException ignore) {
-                    }
-                }
-             } else if(java.util.Date.class == toType) {
-            	Date check = null;
-                SimpleDateFormat d1 = (SimpleDateFormat)DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.LONG, locale);
-                SimpleDateFormat d2 = (SimpleDateFormat)DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM, locale);
-                SimpleDateFormat d3 = (SimpleDateFormat)DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
-                SimpleDateFormat rfc3339Format = new SimpleDateFormat(RFC3339_FORMAT);
-                SimpleDateFormat[] dfs = {d1, d2, d3, rfc3339Format}; //added RFC 3339 date format (XW-473)
-                for (int i = 0; i < dfs.length; i++) {
-                	try {
-                		check = dfs[i].parse(sa);
-                		df = dfs[i];
-                		if (check != null) {
-                			break;
-                		}
-                	}
-                	catch (ParseException ignore) {
-                	}
-                }
+                kind = findParsingFormat(TIMESTAMP_PARSE_FORMATS, sa, locale);
+            } else if(java.util.Date.class == toType) {
+                kind = findParsingFormat(DATE_PARSE_FORMATS, sa, locale);
             }
             //final fallback for dates without time
-            if (df == null){
-            	df = DateFormat.getDateInstance(DateFormat.SHORT, locale);
+            if (kind == -1){
+                kind = DATE_SHORT;
             }
             try {
-            	df.setLenient(false); // let's use strict parsing (XW-341)
+                // let's use strict parsing (XW-341)
+                DateFormat df = (DateFormat) getFormat(kind, locale, false);
                 result = df.parse(sa);
                 if (! (Date.class == toType)) {
                     try {
@@ -350,6 +447,89 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         return result;
     }
 
+    /**
+     * Returns the first of the date formats that leniently parses the value, or -1 if none does.
+     */
+    private int findParsingFormat(int[] kinds, String value, Locale locale) {
+        for (int i = 0; i < kinds.length; i++) {
+            try {
+                ((DateFormat) getFormat(kinds[i], locale, true)).parse(value);
+                return kinds[i];
+            } catch (ParseException ignore) {
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the current thread's copy of the format of the given kind for the locale. The copy must not escape
+     * the current thread.
+     */
+    private static Format getFormat(int kind, Locale locale, boolean lenient) {
+        Map localeFormats = (Map) threadFormats.get();
+        Format[] formats = (Format[]) localeFormats.get(locale);
+
+        if (formats == null) {
+            formats = new Format[FORMAT_KINDS * 2];
+            localeFormats.put(locale, formats);
+        }
+
+        int index = (kind * 2) + (lenient ? 0 : 1);
+        Format format = formats[index];
+
+        if (format == null) {
+            FormatKey prototypeKey = new FormatKey(kind, locale, true);
+            Format prototype = (Format) prototypeFormats.get(prototypeKey);
+
+            if (prototype == null) {
+                prototype = createFormat(kind, locale);
+                prototypeFormats.putIfAbsent(prototypeKey, prototype);
+            }
+
+            format = (Format) prototype.clone();
+            if (!lenient) {
+                ((DateFormat) format).setLenient(false);
+            }
+            formats[index] = format;
+        }
+
+        return format;
+    }
+
+    private static Format createFormat(int kind, Locale locale) {
+        switch (kind) {
+            case TIME_MEDIUM:
+                return DateFormat.getTimeInstance(DateFormat.MEDIUM, locale);
+            case DATE_SHORT:
+                return DateFormat.getDateInstance(DateFormat.SHORT, locale);
+            case DATETIME_SHORT_LONG:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.LONG, locale);
+            case DATETIME_SHORT_MEDIUM:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM, locale);
+            case DATETIME_SHORT_SHORT:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            case DATETIME_SHORT_MEDIUM_MILLIS:
+                return new SimpleDateFormat(getDateTimePattern(locale) + MILLISECOND_FORMAT, locale);
+            case TIMESTAMP_OUTPUT:
+                return new SimpleDateFormat(getDateTimePattern(locale) + MILLISECOND_FORMAT);
+            case RFC3339:
+                return new SimpleDateFormat(RFC3339_FORMAT);
+            case NUMBER:
+            case INTEGER:
+                NumberFormat numFormat = NumberFormat.getInstance(locale);
+                numFormat.setParseIntegerOnly(kind == INTEGER);
+                numFormat.setGroupingUsed(true);
+                return numFormat;
+            default:
+                throw new IllegalArgumentException("Unknown format " + kind);
+        }
+    }
+
+    private static String getDateTimePattern(Locale locale) {
+        return ((SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM, locale)).toPattern();
+    }
+
     private Object doConvertToNumber(Map context, Object value, Class toType) {
         if (value instanceof String) {
             if (toType == BigDecimal.class) {
@@ -361,12 +541,15 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
                 if ( !toType.isPrimitive() && (stringValue == null || stringValue.length() == 0)) {
                     return null;
                 }
-                NumberFormat numFormat = NumberFormat.getInstance(getLocale(context));
-                ParsePosition parsePos = new ParsePosition(0);
-                if (isIntegerType(toType)) {
-                    numFormat.setParseIntegerOnly(true);
+                if (toType == Integer.class || toType == Long.class || toType == Double.class) {
+                    // plain digits need no locale aware parsing
+                    long plain = parsePlainDigits(stringValue);
+                    if (plain != -1) {
+                        return super.convertValue(context, new Long(plain), toType);
+                    }
                 }
-                numFormat.setGroupingUsed(true);
+                NumberFormat numFormat = (NumberFormat) getFormat(isIntegerType(toType) ? INTEGER : NUMBER, getLocale(context), true);
+                ParsePosition parsePos = new ParsePosition(0);
                 Number number = numFormat.parse(stringValue, parsePos);
 
                 if (parsePos.getIndex() != stringValue.length()) {
@@ -438,22 +621,47 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
 
             result = TextUtils.join(", ", intArray);
         } else if (value instanceof Date) {
-            DateFormat df = null;
+            int kind;
             if (value instanceof java.sql.Time) {
-                df = DateFormat.getTimeInstance(DateFormat.MEDIUM, getLocale(context));
+                kind = TIME_MEDIUM;
             } else if (value instanceof java.sql.Timestamp) {
-                SimpleDateFormat dfmt = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT,
-                        DateFormat.MEDIUM,
-                        getLocale(context));
-                df = new SimpleDateFormat(dfmt.toPattern() + MILLISECOND_FORMAT);
+                kind = TIMESTAMP_OUTPUT;
             } else {
-                df = DateFormat.getDateInstance(DateFormat.SHORT, getLocale(context));
+                kind = DATE_SHORT;
             }
-            result = df.format(value);
+            result = getFormat(kind, getLocale(context), true).format(value);
         } else if (value instanceof String[]) {
             result = TextUtils.join(", ", (String[]) value);
         }
 
         return result;
     }
+
+    private static class FormatKey {
+        private final int kind;
+        private final Locale locale;
+        private final boolean lenient;
+
+        FormatKey(int kind, Locale locale, boolean lenient) {
+            this.kind = kind;
+            this.locale = locale;
+            this.lenient = lenient;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FormatKey)) return false;
+
+            final FormatKey formatKey = (FormatKey) o;
+
+            return kind == formatKey.kind && lenient == formatKey.lenient && locale.equals(formatKey.locale);
+        }
+
+        public int hashCode() {
+            int result = kind;
+            result = 29 * result + locale.hashCode();
+            result = 29 * result + (lenient ? 1 : 0);
+            return result;
+        }
+    }
 }
@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Member;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ognl.DefaultTypeConverter;
 import ognl.OgnlRuntime;
@@ -20,6 +21,8 @@ import com.opensymphony.util.FileManager;
 import com.opensymphony.xwork.ActionContext;
 import com.opensymphony.xwork.ObjectFactory;
 import com.opensymphony.xwork.XWorkMessages;
+import com.opensymphony.xwork.config.ConfigurationManager;
+import com.opensymphony.xwork.config.ConfigurationWatcher;
 
 
 /**
@@ -93,6 +96,13 @@ import com.opensymphony.xwork.XWorkMessages;
  *
  * <!-- END SNIPPET: error-reporting -->
  *
+ * <p/>
+ *
+ * Note to subclasses: the converter mappings of each class are kept in {@link #mappings}, which is a
+ * {@link ConcurrentHashMap} rather than a HashMap, and there is no <code>noMapping</code> set any more. A class
+ * without converter mappings is registered in {@link #mappings} with {@link #NO_MAPPING} instead. Subclasses which
+ * used either field must be changed accordingly.
+ *
  * @author <a href="mailto:plightbo@gmail.com">Pat Lightbody</a>
  * @author Rainer Hermanns
  * @author <a href='mailto:the_mindstorm[at]evolva[dot]ro'>Alexandru Popescu</a>
@@ -109,10 +119,29 @@ public class XWorkConverter extends DefaultTypeConverter {
     public static final String LAST_BEAN_CLASS_ACCESSED = "last.bean.accessed";
     public static final String LAST_BEAN_PROPERTY_ACCESSED = "last.property.accessed";
 
+    /**
+     * Registered in {@link #mappings} for the classes that have no converter mappings, or whose mappings could not
+     * be loaded, so that they are not looked up again.
+     */
+    protected static final Map NO_MAPPING = Collections.unmodifiableMap(new HashMap());
+
+    /**
+     * The maximum number of conversion plans, that is of (class, property, target type) combinations whose
+     * TypeConverter is remembered.
+     */
+    public static final int DEFAULT_CONVERSION_PLAN_CACHE_MAX_SIZE = 10000;
+
+    private static final Object NO_CONVERTER = new Object();
+
     protected HashMap defaultMappings = new HashMap();
-    protected HashMap mappings = new HashMap();
-    protected HashSet noMapping = new HashSet();
+    /**
+     * The converter mappings of each class, read without locking. A mapping is never modified once registered,
+     * classes without any mapping are registered with {@link #NO_MAPPING}. This used to be a HashMap along with a
+     * <code>noMapping</code> set of the classes without any mapping.
+     */
+    protected ConcurrentHashMap mappings = new ConcurrentHashMap();
     protected HashSet unknownMappings = new HashSet();
+    protected BoundedCache conversionPlans = new BoundedCache(DEFAULT_CONVERSION_PLAN_CACHE_MAX_SIZE);
     protected TypeConverter defaultTypeConverter = new XWorkBasicConverter();
     protected ObjectTypeDeterminer objectTypeDeterminer = ObjectTypeDeterminerFactory.getInstance();
 
@@ -202,53 +231,40 @@ public class XWorkConverter extends DefaultTypeConverter {
         //
         // Process the conversion using the default mappings, if one exists
         //
-        TypeConverter tc = null;
-
         if ((value != null) && (toClass == value.getClass())) {
             return value;
         }
 
         // allow this method to be called without any context
         // i.e. it can be called with as little as "Object value" and "Class toClass"
-        if (target != null) {
-            Class clazz = target.getClass();
+        Class ownerClass = null;
 
-            Object[] classProp = null;
+        if (target != null) {
+            ownerClass = target.getClass();
 
             // this is to handle weird issues with setValue with a different type
-            if ((target instanceof CompoundRoot) && (context != null)) {
-                classProp = getClassProperty(context);
+            if ((target instanceof CompoundRoot) && (context != null) && OgnlContextState.hasLink(context)) {
+                ownerClass = OgnlContextState.getLinkClass(context);
+                property = OgnlContextState.getLinkName(context);
             }
+        }
 
-            if (classProp != null) {
-                clazz = (Class) classProp[0];
-                property = (String) classProp[1];
-            }
+        Object lastPropertyPath = null;
+        Class lastBeanClass = null;
 
-            tc = (TypeConverter) getConverter(clazz, property);
+        if (context != null) {
+            lastPropertyPath = OgnlContextState.getCurrentPropertyPath(context);
+            lastBeanClass = OgnlContextState.getLastBeanClassAccessed(context);
         }
 
-        if (tc == null && context != null) {
-            // ok, let's see if we can look it up by path as requested in XW-297
-            Object lastPropertyPath = context.get(OgnlContextState.CURRENT_PROPERTY_PATH);
-            Class clazz = (Class) context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
-            if (lastPropertyPath != null && clazz != null) {
-                String path = lastPropertyPath + "." + property;
-                tc = (TypeConverter) getConverter(clazz, path);
-            }
-        }
+        Class valueClass = null;
 
-        if (tc == null) {
-            if (toClass.equals(String.class) && (value != null) && !(value.getClass().equals(String.class) || value.getClass().equals(String[].class)))
-            {
-                // when converting to a string, use the source target's class's converter
-                tc = lookup(value.getClass());
-            } else {
-                // when converting from a string, use the toClass's converter
-                tc = lookup(toClass);
-            }
+        if (toClass.equals(String.class) && (value != null) && !(value.getClass().equals(String.class) || value.getClass().equals(String[].class))) {
+            valueClass = value.getClass();
         }
 
+        TypeConverter tc = findTypeConverter(ownerClass, property, lastBeanClass, lastPropertyPath, toClass, valueClass);
+
         if (tc != null) {
             try {
                 return tc.convertValue(context, target, member, property, value, toClass);
@@ -278,6 +294,54 @@ public class XWorkConverter extends DefaultTypeConverter {
         }
     }
 
+    /**
+     * Returns the TypeConverter to use for a conversion, or <tt>null</tt> if the default converter should be used.
+     * The outcome of the search is cached as a conversion plan, so that converting the same property of the same
+     * class again takes a single lookup.
+     *
+     * @param ownerClass       the class of the object whose property is converted, may be <tt>null</tt>
+     * @param property         the property converted, may be <tt>null</tt>
+     * @param lastBeanClass    the class of the bean last accessed, to look the converter up by path (XW-297)
+     * @param lastPropertyPath the path of the property last accessed
+     * @param toClass          the class to convert to
+     * @param valueClass       the class of the value when converting a value other than a String to a String,
+     *                         <tt>null</tt> otherwise
+     * @return the TypeConverter or <tt>null</tt>
+     */
+    protected TypeConverter findTypeConverter(Class ownerClass, String property, Class lastBeanClass, Object lastPropertyPath, Class toClass, Class valueClass) {
+        ConversionPlanKey key = new ConversionPlanKey(ownerClass, property, lastBeanClass, lastPropertyPath, toClass, valueClass);
+        Object plan = conversionPlans.get(key);
+
+        if (plan == null) {
+            TypeConverter tc = null;
+
+            if (ownerClass != null) {
+                tc = (TypeConverter) getConverter(ownerClass, property);
+            }
+
+            if (tc == null && lastPropertyPath != null && lastBeanClass != null) {
+                // ok, let's see if we can look it up by path as requested in XW-297
+                String path = lastPropertyPath + "." + property;
+                tc = (TypeConverter) getConverter(lastBeanClass, path);
+            }
+
+            if (tc == null) {
+                if (valueClass != null) {
+                    // when converting to a string, use the source target's class's converter
+                    tc = lookup(valueClass);
+                } else {
+                    // when converting from a string, use the toClass's converter
+                    tc = lookup(toClass);
+                }
+            }
+
+            plan = (tc != null) ? (Object) tc : NO_CONVERTER;
+            conversionPlans.putIfAbsent(key, plan);
+        }
+
+        return (plan != NO_CONVERTER) ? (TypeConverter) plan : null;
+    }
+
     /**
      * Looks for a TypeConverter in the default mappings.
      *
@@ -304,7 +368,7 @@ public class XWorkConverter extends DefaultTypeConverter {
 
             if (result != null) {
                 //Register now, the next lookup will be faster
-                registerConverter(className, result);
+                registerInheritedConverter(className, result);
             } else {
                 // if it isn't found, never look again (also faster)
                 registerConverterNotFound(className);
@@ -329,41 +393,44 @@ public class XWorkConverter extends DefaultTypeConverter {
             LOG.debug("Property: " + property);
             LOG.debug("Class: " + clazz.getName());
         }
-        synchronized (clazz) {
-            if ((property != null) && !noMapping.contains(clazz)) {
-                try {
-                    Map mapping = (Map) mappings.get(clazz);
 
-                    if (mapping == null) {
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug("Map is null.");
-                        }
-                        mapping = buildConverterMapping(clazz);
-                    } else {
-                        mapping = conditionalReload(clazz, mapping);
-                    }
+        if (property == null) {
+            return null;
+        }
 
-                    Object converter = mapping.get(property);
-                    if (LOG.isDebugEnabled() && converter == null) {
-                        LOG.debug("converter is null for property " + property + ". Mapping size: " + mapping.size());
-                        Iterator iter = mapping.keySet().iterator();
-                        while (iter.hasNext()) {
-                            Object next = iter.next();
-                            LOG.debug(next + ":" + mapping.get(next));
-                        }
-                    }
-                    return converter;
-                } catch (Throwable t) {
-                    noMapping.add(clazz);
-                }
+        Map mapping = (Map) mappings.get(clazz);
+
+        if (mapping == null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Map is null.");
+            }
+
+            try {
+                mapping = buildConverterMapping(clazz);
+            } catch (Throwable t) {
+                mappings.put(clazz, NO_MAPPING);
+                return null;
             }
         }
 
-        return null;
+        if (mapping == NO_MAPPING) {
+            return null;
+        }
+
+        Object converter = mapping.get(property);
+        if (LOG.isDebugEnabled() && converter == null) {
+            LOG.debug("converter is null for property " + property + ". Mapping size: " + mapping.size());
+            Iterator iter = mapping.keySet().iterator();
+            while (iter.hasNext()) {
+                Object next = iter.next();
+                LOG.debug(next + ":" + mapping.get(next));
+            }
+        }
+        return converter;
     }
 
     protected void handleConversionException(Map context, String property, Object value, Object object) {
-        if ((Boolean.TRUE.equals(context.get(REPORT_CONVERSION_ERRORS)))) {
+        if (OgnlContextState.isReportingConversionErrors(context)) {
 
             String realProperty = property;
             String fullName = (String) context.get(CONVERSION_PROPERTY_FULLNAME);
@@ -385,14 +452,20 @@ public class XWorkConverter extends DefaultTypeConverter {
 
     public synchronized void registerConverter(String className, TypeConverter converter) {
         defaultMappings.put(className, converter);
+        conversionPlans.clear();
     }
 
-    public synchronized void registerConverterNotFound(String className) {
-        unknownMappings.add(className);
+    /**
+     * Registers the converter found for <code>className</code> through its super classes and interfaces. Unlike
+     * {@link #registerConverter(String, TypeConverter)} it keeps the conversion plans, a class that had no converter
+     * registered yet cannot have a plan built with another one.
+     */
+    private synchronized void registerInheritedConverter(String className, TypeConverter converter) {
+        defaultMappings.put(className, converter);
     }
 
-    private Object[] getClassProperty(Map context) {
-        return (Object[]) context.get("__link");
+    public synchronized void registerConverterNotFound(String className) {
+        unknownMappings.add(className);
     }
 
     /**
@@ -433,9 +506,12 @@ public class XWorkConverter extends DefaultTypeConverter {
      */
     protected void addConverterMapping(Map mapping, Class clazz) {
         try {
-            InputStream is = FileManager.loadFile(buildConverterFilename(clazz), clazz);
+            String fileName = buildConverterFilename(clazz);
+            InputStream is = FileManager.loadFile(fileName, clazz);
 
             if (is != null) {
+                watchConverterFile(fileName, clazz);
+
                 Properties prop = new Properties();
                 prop.load(is);
 
@@ -507,9 +583,12 @@ public class XWorkConverter extends DefaultTypeConverter {
      * Looks for converter mappings for the specified class, traversing up its class hierarchy and interfaces and adding
      * any additional mappings it may find.  Mappings lower in the hierarchy have priority over those higher in the
      * hierarcy.
+     * <p/>
+     * The mapping is built completely before it is registered, should another thread have registered a mapping for
+     * the class in the mean time, that one is kept and returned.
      *
      * @param clazz the class to look for converter mappings for
-     * @return the converter mappings
+     * @return the converter mappings, {@link #NO_MAPPING} if there are none
      */
     protected Map buildConverterMapping(Class clazz) throws Exception {
         Map mapping = new HashMap();
@@ -531,25 +610,27 @@ public class XWorkConverter extends DefaultTypeConverter {
             curClazz = curClazz.getSuperclass();
         }
 
-        if (mapping.size() > 0) {
-            mappings.put(clazz, mapping);
-        } else {
-            noMapping.add(clazz);
-        }
+        Map registered = (mapping.size() > 0) ? Collections.unmodifiableMap(mapping) : NO_MAPPING;
+        Map existing = (Map) mappings.putIfAbsent(clazz, registered);
 
-        return mapping;
+        return (existing != null) ? existing : registered;
     }
 
-    private Map conditionalReload(Class clazz, Map oldValues) throws Exception {
-        Map mapping = oldValues;
-
-        if (FileManager.isReloadingConfigs()) {
-            if (FileManager.fileNeedsReloading(buildConverterFilename(clazz))) {
-                mapping = buildConverterMapping(clazz);
-            }
+    /**
+     * Registers a conversion file with the configuration watcher when configurations are reloading, all mappings
+     * are dropped once it changes as the mappings of a class include those of its super classes and interfaces.
+     */
+    private void watchConverterFile(String fileName, Class clazz) {
+        ConfigurationWatcher watcher = ConfigurationManager.getConfigurationWatcher();
+
+        if (watcher != null) {
+            watcher.watch(fileName, clazz, new Runnable() {
+                public void run() {
+                    mappings.clear();
+                    conversionPlans.clear();
+                }
+            });
         }
-
-        return mapping;
     }
 
     TypeConverter createTypeConverter(String className) throws Exception {
@@ -573,6 +654,8 @@ public class XWorkConverter extends DefaultTypeConverter {
                 LOG.error("Conversion registration error", e);
             }
         }
+
+        conversionPlans.clear();
     }
 
     /**
@@ -621,4 +704,57 @@ public class XWorkConverter extends DefaultTypeConverter {
         objectTypeDeterminer = determiner;
     }
 
+
+
+    /**
+     * Identifies a conversion plan: everything the choice of TypeConverter depends on.
+     */
+    private static class ConversionPlanKey {
+        private final Class ownerClass;
+        private final String property;
+        private final Class lastBeanClass;
+        private final Object lastPropertyPath;
+        private final Class toClass;
+        private final Class valueClass;
+        private final int hashCode;
+
+        ConversionPlanKey(Class ownerClass, String property, Class lastBeanClass, Object lastPropertyPath, Class toClass, Class valueClass) {
+            this.ownerClass = ownerClass;
+            this.property = property;
+            this.lastBeanClass = lastBeanClass;
+            this.lastPropertyPath = lastPropertyPath;
+            this.toClass = toClass;
+            this.valueClass = valueClass;
+
+            int result = (ownerClass != null ? ownerClass.hashCode() : 0);
+            result = 29 * result + (property != null ? property.hashCode() : 0);
+            result = 29 * result + (lastBeanClass != null ? lastBeanClass.hashCode() : 0);
+            result = 29 * result + (lastPropertyPath != null ? lastPropertyPath.hashCode() : 0);
+            result = 29 * result + (toClass != null ? toClass.hashCode() : 0);
+            result = 29 * result + (valueClass != null ? valueClass.hashCode() : 0);
+            this.hashCode = result;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConversionPlanKey)) return false;
+
+            final ConversionPlanKey key = (ConversionPlanKey) o;
+
+            if (hashCode != key.hashCode) return false;
+            if (ownerClass != key.ownerClass) return false;
+            if (lastBeanClass != key.lastBeanClass) return false;
+            if (toClass != key.toClass) return false;
+            if (valueClass != key.valueClass) return false;
+            if (property != null ? !property.equals(key.property) : key.property != null) return false;
+            if (lastPropertyPath != null ? !lastPropertyPath.equals(key.lastPropertyPath) : key.lastPropertyPath != null)
+                return false;
+
+            return true;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -35,8 +35,8 @@ public class XWorkListPropertyAccessor extends ListPropertyAccessor {
         }
         OgnlContextState.updateCurrentPropertyPath(context, name);
         //System.out.println("Entering XWorkListPropertyAccessor. Name: " + name);
-        Class lastClass = (Class) context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
-        String lastProperty = (String) context.get(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED);
+        Class lastClass = OgnlContextState.getLastBeanClassAccessed(context);
+        String lastProperty = OgnlContextState.getLastBeanPropertyAccessed(context);
         
         if (name instanceof Number
                 && OgnlContextState.isCreatingNullObjects(context)
@@ -83,8 +83,8 @@ public class XWorkListPropertyAccessor extends ListPropertyAccessor {
     public void setProperty(Map context, Object target, Object name, Object value)
             throws OgnlException {
 
-        Class lastClass = (Class) context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
-        String lastProperty = (String) context.get(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED);
+        Class lastClass = OgnlContextState.getLastBeanClassAccessed(context);
+        String lastProperty = OgnlContextState.getLastBeanPropertyAccessed(context);
         Class convertToClass = XWorkConverter.getInstance()
                 .getObjectTypeDeterminer().getElementClass(lastClass, lastProperty, name);
 
@@ -52,9 +52,9 @@ public class XWorkMapPropertyAccessor extends MapPropertyAccessor {
 
         if (result == null) {
             //find the key class and convert the name to that class
-            Class lastClass = (Class) context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
+            Class lastClass = OgnlContextState.getLastBeanClassAccessed(context);
 
-            String lastProperty = (String) context.get(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED);
+            String lastProperty = OgnlContextState.getLastBeanPropertyAccessed(context);
             if (lastClass == null || lastProperty == null) {
                 return super.getProperty(context, target, name);
             }
@@ -112,8 +112,8 @@ public class XWorkMapPropertyAccessor extends MapPropertyAccessor {
      }
 
      private Object getValue(Map context, Object value) {
-         Class lastClass = (Class) context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
-         String lastProperty = (String) context.get(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED);
+         Class lastClass = OgnlContextState.getLastBeanClassAccessed(context);
+         String lastProperty = OgnlContextState.getLastBeanPropertyAccessed(context);
          if (lastClass == null || lastProperty == null) {
              return value;
          }
@@ -126,8 +126,8 @@ public class XWorkMapPropertyAccessor extends MapPropertyAccessor {
 }
 
     private Object getKey(Map context, Object name) {
-        Class lastClass = (Class) context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED);
-        String lastProperty = (String) context.get(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED);
+        Class lastClass = OgnlContextState.getLastBeanClassAccessed(context);
+        String lastProperty = OgnlContextState.getLastBeanPropertyAccessed(context);
         if (lastClass == null || lastProperty == null) {
             // return java.lang.String.class;
             // commented out the above -- it makes absolutely no sense for when setting basic maps!
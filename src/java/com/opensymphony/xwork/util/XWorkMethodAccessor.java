@@ -75,8 +75,7 @@ public class XWorkMethodAccessor extends ObjectMethodAccessor {
                 return super.callMethod(context, object, string, objects);
             }
         }
-        Boolean exec = (Boolean) context.get(DENY_METHOD_EXECUTION);
-        boolean e = ((exec == null) ? false : exec.booleanValue());
+        boolean e = OgnlContextState.isDenyMethodExecution(context);
 
         if (!e) {
             return super.callMethod(context, object, string, objects);
@@ -86,8 +85,7 @@ public class XWorkMethodAccessor extends ObjectMethodAccessor {
     }
 
     public Object callStaticMethod(Map context, Class aClass, String string, Object[] objects) throws MethodFailedException {
-        Boolean exec = (Boolean) context.get(DENY_METHOD_EXECUTION);
-        boolean e = ((exec == null) ? false : exec.booleanValue());
+        boolean e = OgnlContextState.isDenyMethodExecution(context);
 
         if (!e) {
             return super.callStaticMethod(context, aClass, string, objects);
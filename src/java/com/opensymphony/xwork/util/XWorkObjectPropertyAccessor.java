@@ -19,9 +19,7 @@ public class XWorkObjectPropertyAccessor extends ObjectPropertyAccessor {
         //so if the next objects accessed are
         //Maps or Collections they can use the information
         //to determine conversion types
-        context.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, target.getClass());
-        context.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, oname.toString());
-        OgnlContextState.updateCurrentPropertyPath(context, oname);
+        OgnlContextState.updateLastBeanAccessed(context, target.getClass(), oname);
         return super.getProperty(context, target, oname);
     }
 }
@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+import ognl.ClassResolver;
+import ognl.MemberAccess;
+import ognl.OgnlContext;
+import ognl.TypeConverter;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * The OGNL context of an {@link OgnlValueStack}, keeping the evaluation state that {@link OgnlContextState} and the
+ * XWork accessors update on every property access in typed fields rather than in the context's map.
+ * <p/>
+ * The well-known state keys, such as {@link XWorkConverter#LAST_BEAN_CLASS_ACCESSED} or
+ * {@link OgnlContextState#CURRENT_PROPERTY_PATH}, are still read and written through {@link #get(Object)},
+ * {@link #put(Object, Object)} and {@link #remove(Object)}, they are only kept in a flat array indexed by key
+ * instead of being hashed into the map. A state key set to <tt>null</tt> is the same as a state key not set, the
+ * others are listed by {@link #keySet()}, {@link #entrySet()} and {@link #values()} after the other entries, so that
+ * copying the context, eg. with {@link #putAll(Map)} or <code>new HashMap(context)</code>, copies the state too.
+ * <p/>
+ * The last property accessed (<tt>__link</tt>) is kept as its class and name and the current property path is built
+ * in a reused buffer, so that walking a property path does not allocate for bookkeeping.
+ *
+ * @version $Date$ $Id$
+ * @see OgnlContextState
+ */
+class XWorkOgnlContext extends OgnlContext {
+
+    static final String LINK = "__link";
+
+    static final int LAST_BEAN_CLASS_ACCESSED = 0;
+    static final int LAST_BEAN_PROPERTY_ACCESSED = 1;
+    static final int CREATE_NULL_OBJECTS = 2;
+    static final int DENY_METHOD_EXECUTION = 3;
+    static final int GETTING_BY_KEY_PROPERTY = 4;
+    static final int REPORT_CONVERSION_ERRORS = 5;
+    static final int CONVERSION_PROPERTY_FULLNAME = 6;
+    static final int REPORT_ERRORS_ON_NO_PROP = 7;
+
+    // slots past the plain values have their own fields
+    private static final int LINK_SLOT = 8;
+    private static final int CURRENT_PROPERTY_PATH_SLOT = 9;
+
+    private static final String[] SLOT_KEYS = {
+            XWorkConverter.LAST_BEAN_CLASS_ACCESSED,
+            XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED,
+            InstantiatingNullHandler.CREATE_NULL_OBJECTS,
+            XWorkMethodAccessor.DENY_METHOD_EXECUTION,
+            OgnlContextState.GETTING_BY_KEY_PROPERTY,
+            XWorkConverter.REPORT_CONVERSION_ERRORS,
+            XWorkConverter.CONVERSION_PROPERTY_FULLNAME,
+            OgnlValueStack.REPORT_ERRORS_ON_NO_PROP,
+            LINK,
+            OgnlContextState.CURRENT_PROPERTY_PATH
+    };
+
+    private static final int[] SLOT_HASHES = new int[SLOT_KEYS.length];
+
+    static {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            SLOT_HASHES[i] = SLOT_KEYS[i].hashCode();
+        }
+    }
+
+    private final Object[] slots = new Object[LINK_SLOT];
+
+    private Class linkClass;
+    private String linkName;
+
+    private final StringBuffer propertyPath = new StringBuffer();
+    private boolean hasPropertyPath;
+    private String propertyPathString;
+
+
+    XWorkOgnlContext(ClassResolver classResolver, TypeConverter typeConverter, MemberAccess memberAccess) {
+        super(classResolver, typeConverter, memberAccess);
+    }
+
+
+    Object getSlot(int slot) {
+        return slots[slot];
+    }
+
+    void setSlot(int slot, Object value) {
+        slots[slot] = value;
+    }
+
+    boolean isFlagSet(int slot) {
+        return Boolean.TRUE.equals(slots[slot]);
+    }
+
+    void setFlag(int slot, boolean value) {
+        slots[slot] = value ? Boolean.TRUE : Boolean.FALSE;
+    }
+
+    void setLink(Class clazz, String name) {
+        linkClass = clazz;
+        linkName = name;
+    }
+
+    Class getLinkClass() {
+        return linkClass;
+    }
+
+    String getLinkName() {
+        return linkName;
+    }
+
+    boolean hasLink() {
+        return (linkClass != null) || (linkName != null);
+    }
+
+    String getCurrentPropertyPath() {
+        if (!hasPropertyPath) {
+            return null;
+        }
+
+        if (propertyPathString == null) {
+            propertyPathString = propertyPath.toString();
+        }
+
+        return propertyPathString;
+    }
+
+    void setCurrentPropertyPath(String path) {
+        propertyPath.setLength(0);
+        hasPropertyPath = (path != null);
+        propertyPathString = path;
+
+        if (path != null) {
+            propertyPath.append(path);
+        }
+    }
+
+    void appendToCurrentPropertyPath(Object name) {
+        if (hasPropertyPath) {
+            propertyPath.append('.');
+        }
+
+        propertyPath.append(name);
+        hasPropertyPath = true;
+        propertyPathString = null;
+    }
+
+    /**
+     * Clears the state of the evaluation, as {@link OgnlContextState#clear(java.util.Map)} does.
+     */
+    void clearEvaluationState() {
+        slots[LAST_BEAN_CLASS_ACCESSED] = null;
+        slots[LAST_BEAN_PROPERTY_ACCESSED] = null;
+        setCurrentPropertyPath(null);
+    }
+
+    public Object get(Object key) {
+        int slot = slotOf(key);
+
+        if (slot < 0) {
+            return super.get(key);
+        } else if (slot == LINK_SLOT) {
+            return hasLink() ? new Object[]{linkClass, linkName} : null;
+        } else if (slot == CURRENT_PROPERTY_PATH_SLOT) {
+            return getCurrentPropertyPath();
+        }
+
+        return slots[slot];
+    }
+
+    public Object put(Object key, Object value) {
+        int slot = slotOf(key);
+
+        if (slot < 0) {
+            return super.put(key, value);
+        }
+
+        Object previous = get(key);
+
+        if (slot == LINK_SLOT) {
+            Object[] link = (Object[]) value;
+
+            if (link == null) {
+                setLink(null, null);
+            } else {
+                setLink((Class) link[0], (String) link[1]);
+            }
+        } else if (slot == CURRENT_PROPERTY_PATH_SLOT) {
+            setCurrentPropertyPath((String) value);
+        } else {
+            slots[slot] = value;
+        }
+
+        return previous;
+    }
+
+    public Object remove(Object key) {
+        return (slotOf(key) < 0) ? super.remove(key) : put(key, null);
+    }
+
+    public boolean containsKey(Object key) {
+        return (slotOf(key) < 0) ? super.containsKey(key) : (get(key) != null);
+    }
+
+    public int size() {
+        int size = super.size();
+
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            if (get(SLOT_KEYS[i]) != null) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsValue(Object value) {
+        return values().contains(value);
+    }
+
+    public Set entrySet() {
+        return new AbstractSet() {
+            public Iterator iterator() {
+                return new EntryIterator(XWorkOgnlContext.super.entrySet().iterator());
+            }
+
+            public int size() {
+                return XWorkOgnlContext.this.size();
+            }
+        };
+    }
+
+    public Set keySet() {
+        return new AbstractSet() {
+            public Iterator iterator() {
+                return new KeyIterator(entrySet().iterator());
+            }
+
+            public int size() {
+                return XWorkOgnlContext.this.size();
+            }
+
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            public boolean remove(Object o) {
+                boolean contained = containsKey(o);
+                XWorkOgnlContext.this.remove(o);
+                return contained;
+            }
+        };
+    }
+
+    public Collection values() {
+        return new AbstractCollection() {
+            public Iterator iterator() {
+                return new ValueIterator(entrySet().iterator());
+            }
+
+            public int size() {
+                return XWorkOgnlContext.this.size();
+            }
+        };
+    }
+
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof Map) || (((Map) o).size() != size())) {
+            return false;
+        }
+
+        Map other = (Map) o;
+
+        for (Iterator iterator = entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            Object value = entry.getValue();
+
+            if ((value == null) ? !((other.get(entry.getKey()) == null) && other.containsKey(entry.getKey()))
+                    : !value.equals(other.get(entry.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int hashCode() {
+        int hashCode = 0;
+
+        for (Iterator iterator = entrySet().iterator(); iterator.hasNext();) {
+            hashCode += iterator.next().hashCode();
+        }
+
+        return hashCode;
+    }
+
+    public void clear() {
+        super.clear();
+
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+        }
+
+        setLink(null, null);
+        setCurrentPropertyPath(null);
+    }
+
+    /**
+     * Iterates over the entries of the map, then over the state keys that are set.
+     */
+    private class EntryIterator implements Iterator {
+        private final Iterator entries;
+        private boolean inEntries = true;
+        private int nextSlot = -1;
+        private int lastSlot = -1;
+
+        EntryIterator(Iterator entries) {
+            this.entries = entries;
+        }
+
+        public boolean hasNext() {
+            if (inEntries && entries.hasNext()) {
+                return true;
+            }
+
+            inEntries = false;
+
+            if (nextSlot <= lastSlot) {
+                nextSlot = lastSlot + 1;
+
+                while ((nextSlot < SLOT_KEYS.length) && (get(SLOT_KEYS[nextSlot]) == null)) {
+                    nextSlot++;
+                }
+            }
+
+            return nextSlot < SLOT_KEYS.length;
+        }
+
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (inEntries) {
+                return entries.next();
+            }
+
+            lastSlot = nextSlot;
+            return new StateEntry(SLOT_KEYS[lastSlot]);
+        }
+
+        public void remove() {
+            if (inEntries) {
+                entries.remove();
+            } else if (lastSlot < 0) {
+                throw new IllegalStateException();
+            } else {
+                XWorkOgnlContext.this.remove(SLOT_KEYS[lastSlot]);
+            }
+        }
+    }
+
+    private static class KeyIterator implements Iterator {
+        private final Iterator entries;
+
+        KeyIterator(Iterator entries) {
+            this.entries = entries;
+        }
+
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        public Object next() {
+            return ((Map.Entry) entries.next()).getKey();
+        }
+
+        public void remove() {
+            entries.remove();
+        }
+    }
+
+    private static class ValueIterator implements Iterator {
+        private final Iterator entries;
+
+        ValueIterator(Iterator entries) {
+            this.entries = entries;
+        }
+
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        public Object next() {
+            return ((Map.Entry) entries.next()).getValue();
+        }
+
+        public void remove() {
+            entries.remove();
+        }
+    }
+
+    /**
+     * The entry of a state key, reading and writing through the context.
+     */
+    private class StateEntry implements Map.Entry {
+        private final String key;
+
+        StateEntry(String key) {
+            this.key = key;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return get(key);
+        }
+
+        public Object setValue(Object value) {
+            return put(key, value);
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry entry = (Map.Entry) o;
+            Object value = getValue();
+
+            return key.equals(entry.getKey()) && ((value == null) ? (entry.getValue() == null) : value.equals(entry.getValue()));
+        }
+
+        public int hashCode() {
+            Object value = getValue();
+
+            return key.hashCode() ^ ((value == null) ? 0 : value.hashCode());
+        }
+
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+    /**
+     * @return the index of the state slot of <code>key</code>, -1 if it is not a state key
+     */
+    private static int slotOf(Object key) {
+        if (key instanceof String) {
+            int hash = key.hashCode();
+
+            for (int i = 0; i < SLOT_KEYS.length; i++) {
+                if ((SLOT_HASHES[i] == hash) && SLOT_KEYS[i].equals(key)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 import com.opensymphony.xwork.validator.validators.VisitorFieldValidator;
 
@@ -19,6 +20,14 @@ import com.opensymphony.xwork.validator.validators.VisitorFieldValidator;
  * that reads in the validation configuration through annotation where the diference between them is just how to get
  * the validation configuration information (in this example, through xml and annotation respectively). 
  *
+ * <p/>Validators run one after the other on the calling thread unless an executor is set through
+ * {@link #setExecutorService(ExecutorService)}. The validators are then partitioned by the full name of the field
+ * they validate, the validators of the action itself making up one more partition, and the partitions are run in
+ * parallel, each keeping the order and short-circuiting of its validators. Errors are added to the validator context
+ * partition after partition, in the order of the first validator of each partition, whatever the order the
+ * partitions completed in. The elements of collections visited by a {@link VisitorFieldValidator} or a
+ * {@link com.opensymphony.xwork.validator.validators.CollectionFieldValidator} are validated in parallel as well.
+ *
  * @author tmjee
  * @version $Date$ $Id$
  */
@@ -26,6 +35,26 @@ public abstract class AbstractActionValidatorManager implements ActionValidatorM
 
     private static final Log LOG = LogFactory.getLog(AbstractActionValidatorManager.class);
 
+    private volatile ValidationExecutor validationExecutor;
+
+    /**
+     * Sets the executor to run independent validators on, validators only run in parallel if they are safe for
+     * concurrent use, which all {@link StatelessValidator}s are. <tt>null</tt>, the default, runs validators on the
+     * calling thread.
+     *
+     * @param executorService the executor to run validators on, or <tt>null</tt>
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        validationExecutor = (executorService == null) ? null : new ValidationExecutor(executorService);
+    }
+
+    /**
+     * @return the executor independent validators run on, or <tt>null</tt> if validators run on the calling thread
+     */
+    public ValidationExecutor getValidationExecutor() {
+        return validationExecutor;
+    }
+
     /**
      * Validates the given object using action and its context.
      *
@@ -61,12 +90,82 @@ public abstract class AbstractActionValidatorManager implements ActionValidatorM
      * @throws ValidationException
      */
     public void validate(Object object, List validators, ValidatorContext validatorContext) throws ValidationException {
+        ValidationExecutor executor = validationExecutor;
+        List partitions = null;
+
+        if ((executor != null) && executor.canRunInParallel(validatorContext)) {
+            partitions = partition(validators, validatorContext);
+        }
+
+        if ((partitions == null) || (partitions.size() < 2)) {
+            validateSequentially(object, validators, validatorContext);
+            return;
+        }
+
+        ValidationExecutor.Task[] tasks = new ValidationExecutor.Task[partitions.size()];
+
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new PartitionTask(object, (List) partitions.get(i));
+        }
+
+        executor.execute(tasks, validatorContext);
+    }
+
+    /**
+     * Partitions <code>validators</code> by the full name of the field they validate, the validators of the action
+     * itself making up one partition. Partitions are ordered by their first validator.
+     *
+     * @return the partitions, or <tt>null</tt> if the validators cannot run in parallel
+     */
+    private List partition(List validators, ValidatorContext validatorContext) {
+        Map partitions = new LinkedHashMap();
+        InternalValidatorContextWrapper wrapper = new InternalValidatorContextWrapper(validatorContext);
+
+        for (Iterator iterator = validators.iterator(); iterator.hasNext();) {
+            Validator validator = (Validator) iterator.next();
+
+            if (!(validator instanceof StatelessValidator)) {
+                // may keep state between validations, so must run on the calling thread
+                return null;
+            }
+
+            Object key;
+
+            if (validator instanceof FieldValidator) {
+                key = wrapper.getFullFieldName(((FieldValidator) validator).getFieldName());
+            } else if ((validator instanceof ShortCircuitableValidator) && ((ShortCircuitableValidator) validator).isShortCircuit()) {
+                // short-circuiting on action errors stops the validation of every field
+                return null;
+            } else {
+                key = validatorContext;
+            }
+
+            List partition = (List) partitions.get(key);
+
+            if (partition == null) {
+                partition = new ArrayList();
+                partitions.put(key, partition);
+            }
+
+            partition.add(validator);
+        }
+
+        return new ArrayList(partitions.values());
+    }
+
+    /**
+     * Runs <code>validators</code> one after the other on the calling thread.
+     */
+    private void validateSequentially(Object object, List validators, ValidatorContext validatorContext) throws ValidationException {
     	Set shortcircuitedFields = null;
 
         for (Iterator iterator = validators.iterator(); iterator.hasNext();) {
             final Validator validator = (Validator) iterator.next();
+            final boolean stateless = validator instanceof StatelessValidator;
             try {
-                validator.setValidatorContext(validatorContext);
+                if (!stateless) {
+                    validator.setValidatorContext(validatorContext);
+                }
 
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Running validator: " + validator + " for object " + object);
@@ -77,7 +176,7 @@ public abstract class AbstractActionValidatorManager implements ActionValidatorM
 
                 if (validator instanceof FieldValidator) {
                     fValidator = (FieldValidator) validator;
-                    fullFieldName = new InternalValidatorContextWrapper(fValidator.getValidatorContext()).getFullFieldName(fValidator.getFieldName());
+                    fullFieldName = new InternalValidatorContextWrapper(validatorContext).getFullFieldName(fValidator.getFieldName());
 
                     if ((shortcircuitedFields != null) && shortcircuitedFields.contains(fullFieldName)) {
                         if (LOG.isDebugEnabled()) {
@@ -108,7 +207,7 @@ public abstract class AbstractActionValidatorManager implements ActionValidatorM
                         }
                     }
 
-                    validator.validate(object);
+                    runValidator(validator, object, validatorContext);
 
                     if (fValidator != null) {
                         if (validatorContext.hasFieldErrors()) {
@@ -141,14 +240,45 @@ public abstract class AbstractActionValidatorManager implements ActionValidatorM
                     continue;
                 }
 
-                validator.validate(object);
+                runValidator(validator, object, validatorContext);
             }
             finally {
-                validator.setValidatorContext(null);
+                if (!stateless) {
+                    validator.setValidatorContext(null);
+                }
             }
         }
     }
 
+    /**
+     * Runs <code>validator</code> on <code>object</code>, passing the context along to {@link StatelessValidator}s
+     * which may be shared with other threads. Other validators have had the context set beforehand.
+     */
+    private void runValidator(Validator validator, Object object, ValidatorContext validatorContext) throws ValidationException {
+        if (validator instanceof StatelessValidator) {
+            ((StatelessValidator) validator).validate(object, validatorContext);
+        } else {
+            validator.validate(object);
+        }
+    }
+
+    /**
+     * Validates an object through one partition of its validators.
+     */
+    private class PartitionTask implements ValidationExecutor.Task {
+        private final Object object;
+        private final List validators;
+
+        PartitionTask(Object object, List validators) {
+            this.object = object;
+            this.validators = validators;
+        }
+
+        public void validate(ValidatorContext validatorContext) throws ValidationException {
+            validateSequentially(object, validators, validatorContext);
+        }
+    }
+
     /**
      * Builds a key for validators - used when caching validators.
      *
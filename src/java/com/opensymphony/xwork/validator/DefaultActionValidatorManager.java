@@ -6,6 +6,8 @@
 package com.opensymphony.xwork.validator;
 
 import com.opensymphony.util.FileManager;
+import com.opensymphony.xwork.config.ConfigurationManager;
+import com.opensymphony.xwork.config.ConfigurationWatcher;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -14,6 +16,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -22,6 +25,9 @@ import java.util.*;
  * className is the name of the class the configuration is for and -contextName is optional
  * (contextName is an arbitrary key that is used to look up additional validation rules for a
  * specific context).
+ * <p/>
+ * Validators are built once per class and context. {@link StatelessValidator}s are then shared by all validations,
+ * other validators are built again from their configuration for every validation.
  *
  * @author Jason Carreira
  * @author Mark Woon
@@ -34,7 +40,7 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
     /** The file suffix for any validation file. */
     protected static final String VALIDATION_CONFIG_SUFFIX = "-validation.xml";
 
-    private static final Map validatorCache = Collections.synchronizedMap(new HashMap());
+    private static final Map validatorCache = new ConcurrentHashMap();
     private static final Map validatorFileCache = Collections.synchronizedMap(new HashMap());
     private static final Log LOG = LogFactory.getLog(DefaultActionValidatorManager.class);
 
@@ -46,35 +52,32 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
      * @param context the context of the action class - can be <tt>null</tt>.
      * @return a list of all validators for the given class and context.
      */
-    public synchronized List getValidators(Class clazz, String context) {
-        final String validatorKey = buildValidatorKey(clazz, context);
+    public List getValidators(Class clazz, String context) {
+        // validator parameters are converted using the default locale, validators built under another one differ
+        final String validatorKey = buildValidatorKey(clazz, context) + "/" + Locale.getDefault();
 
-        if (validatorCache.containsKey(validatorKey)) {
-            if (FileManager.isReloadingConfigs()) {
-                validatorCache.put(validatorKey, buildValidatorConfigs(clazz, context, true, null));
-            }
-        } else {
-            validatorCache.put(validatorKey, buildValidatorConfigs(clazz, context, false, null));
-        }
+        Validators validators = (Validators) validatorCache.get(validatorKey);
 
-        // get the set of validator configs
-        List cfgs = (List) validatorCache.get(validatorKey);
+        if (validators == null) {
+            List cfgs = buildValidatorConfigs(clazz, context, null);
+            validators = new Validators(cfgs, buildValidatorsFromValidatorConfig(cfgs));
+            validatorCache.put(validatorKey, validators);
+        }
 
-        // create clean instances of the validators for the caller's use
-        return buildValidatorsFromValidatorConfig(cfgs);
+        return validators.getValidators();
     }
 
 
-    private List buildAliasValidatorConfigs(Class aClass, String context, boolean checkFile) {
+    private List buildAliasValidatorConfigs(Class aClass, String context) {
         String fileName = aClass.getName().replace('.', '/') + "-" + context + VALIDATION_CONFIG_SUFFIX;
 
-        return loadFile(fileName, aClass, checkFile);
+        return loadFile(fileName, aClass);
     }
 
-    private List buildClassValidatorConfigs(Class aClass, boolean checkFile) {
+    private List buildClassValidatorConfigs(Class aClass) {
         String fileName = aClass.getName().replace('.', '/') + VALIDATION_CONFIG_SUFFIX;
 
-        return loadFile(fileName, aClass, checkFile);
+        return loadFile(fileName, aClass);
     }
 
     /**
@@ -114,12 +117,10 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
      *
      * @param clazz the Class to look up validators for.
      * @param context the context to use when looking up validators.
-     * @param checkFile true if the validation config file should be checked to see if it has been
-     *      updated.
      * @param checked the set of previously checked class-contexts, null if none have been checked
      * @return a list of validator configs for the given class and context.
      */
-    private List buildValidatorConfigs(Class clazz, String context, boolean checkFile, Set checked) {
+    private List buildValidatorConfigs(Class clazz, String context, Set checked) {
         List validatorConfigs = new ArrayList();
 
         if (checked == null) {
@@ -132,11 +133,11 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
             Class[] interfaces = clazz.getInterfaces();
 
             for (int x = 0; x < interfaces.length; x++) {
-                validatorConfigs.addAll(buildValidatorConfigs(interfaces[x], context, checkFile, checked));
+                validatorConfigs.addAll(buildValidatorConfigs(interfaces[x], context, checked));
             }
         } else {
             if (!clazz.equals(Object.class)) {
-                validatorConfigs.addAll(buildValidatorConfigs(clazz.getSuperclass(), context, checkFile, checked));
+                validatorConfigs.addAll(buildValidatorConfigs(clazz.getSuperclass(), context, checked));
             }
         }
 
@@ -148,19 +149,19 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
                 continue;
             }
 
-            validatorConfigs.addAll(buildClassValidatorConfigs(interfaces[x], checkFile));
+            validatorConfigs.addAll(buildClassValidatorConfigs(interfaces[x]));
 
             if (context != null) {
-                validatorConfigs.addAll(buildAliasValidatorConfigs(interfaces[x], context, checkFile));
+                validatorConfigs.addAll(buildAliasValidatorConfigs(interfaces[x], context));
             }
 
             checked.add(interfaces[x].getName());
         }
 
-        validatorConfigs.addAll(buildClassValidatorConfigs(clazz, checkFile));
+        validatorConfigs.addAll(buildClassValidatorConfigs(clazz));
 
         if (context != null) {
-            validatorConfigs.addAll(buildAliasValidatorConfigs(clazz, context, checkFile));
+            validatorConfigs.addAll(buildAliasValidatorConfigs(clazz, context));
         }
 
         checked.add(clazz.getName());
@@ -168,10 +169,10 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
         return validatorConfigs;
     }
 
-    private List loadFile(String fileName, Class clazz, boolean checkFile) {
+    private List loadFile(String fileName, Class clazz) {
         List retList = Collections.EMPTY_LIST;
 
-        if ((checkFile && FileManager.fileNeedsReloading(fileName)) || !validatorFileCache.containsKey(fileName)) {
+        if (!validatorFileCache.containsKey(fileName)) {
             InputStream is = null;
 
             try {
@@ -179,6 +180,7 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
 
                 if (is != null) {
                     retList = new ArrayList(ValidatorFileParser.parseActionValidatorConfigs(is, fileName));
+                    watchFile(fileName, clazz);
                 }
             } finally {
                 if (is != null) {
@@ -197,4 +199,58 @@ public class DefaultActionValidatorManager extends AbstractActionValidatorManage
 
         return retList;
     }
+
+    /**
+     * Registers a validation file with the configuration watcher when configurations are reloading. Once it changes
+     * the file is parsed again and the validator configs built from it are rebuilt on next use.
+     */
+    private void watchFile(final String fileName, Class clazz) {
+        ConfigurationWatcher watcher = ConfigurationManager.getConfigurationWatcher();
+
+        if (watcher != null) {
+            watcher.watch(fileName, clazz, new Runnable() {
+                public void run() {
+                    validatorFileCache.remove(fileName);
+                    validatorCache.clear();
+                }
+            });
+        }
+    }
+
+
+    /**
+     * The validators of a class and context: the stateless ones built once and shared, the configuration of the
+     * others to build them again for every validation.
+     */
+    private class Validators {
+        private final List configs;
+        private final Validator[] shared;
+
+        Validators(List configs, List validators) {
+            this.configs = configs;
+            this.shared = new Validator[validators.size()];
+
+            for (int i = 0; i < shared.length; i++) {
+                Object validator = validators.get(i);
+
+                if (validator instanceof StatelessValidator) {
+                    shared[i] = (Validator) validator;
+                }
+            }
+        }
+
+        List getValidators() {
+            List validators = new ArrayList(shared.length);
+
+            for (int i = 0; i < shared.length; i++) {
+                if (shared[i] != null) {
+                    validators.add(shared[i]);
+                } else {
+                    validators.add(buildValidatorsFromValidatorConfig(configs.subList(i, i + 1)).get(0));
+                }
+            }
+
+            return validators;
+        }
+    }
 }
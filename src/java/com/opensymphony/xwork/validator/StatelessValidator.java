@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.validator;
+
+
+/**
+ * A validator that keeps no per-validation state, so that a single configured instance can be shared by all
+ * requests and threads. The {@link ValidatorContext} is passed along with the object to validate instead of being
+ * set on the validator beforehand.
+ * <p/>
+ * {@link DefaultActionValidatorManager} builds stateless validators once per class and context, other validators
+ * are still built for every validation. Sharing is opt-in: the bundled validators declare this interface, a custom
+ * validator only shares its instances when it declares it too. Subclasses of a bundled validator inherit the
+ * declaration and must keep nothing but their configuration in fields as well.
+ *
+ * @version $Date$ $Id$
+ * @see com.opensymphony.xwork.validator.validators.ValidatorSupport
+ */
+public interface StatelessValidator extends Validator {
+
+    /**
+     * Validates <code>object</code>, reporting errors to <code>validatorContext</code>. The context is only used
+     * for the duration of the call.
+     *
+     * @param object           the object to validate
+     * @param validatorContext the context errors are reported to, never <tt>null</tt>
+     * @throws ValidationException
+     */
+    void validate(Object object, ValidatorContext validatorContext) throws ValidationException;
+}
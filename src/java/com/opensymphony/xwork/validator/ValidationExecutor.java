@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.validator;
+
+import com.opensymphony.xwork.ActionContext;
+import com.opensymphony.xwork.ActionInvocation;
+import com.opensymphony.xwork.ActionProxy;
+import com.opensymphony.xwork.Result;
+import com.opensymphony.xwork.ValidationAwareSupport;
+import com.opensymphony.xwork.interceptor.PreResultListener;
+import com.opensymphony.xwork.util.OgnlValueStack;
+import com.opensymphony.xwork.validator.validators.VisitorFieldValidator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+
+/**
+ * Runs independent parts of a validation, such as the validators of different fields or the elements of a visited
+ * collection, on an {@link ExecutorService}.
+ * <p/>
+ * Each task runs on its own copy of the {@link ActionContext} and value stack and reports its errors to a buffer
+ * instead of the shared {@link ValidatorContext}. Likewise the {@link PreResultListener}s a task registers with the
+ * action invocation are kept aside. Once all tasks are done the buffered errors are added to the validator context
+ * and the listeners registered with the invocation task after task, on the calling thread, so the outcome does not
+ * depend on the order tasks completed in.
+ * <p/>
+ * Validations started from a task run on the task's thread, which also keeps a bounded executor from waiting on
+ * itself. Validators run this way must be safe for concurrent use, which all {@link StatelessValidator}s are.
+ *
+ * @version $Date$ $Id$
+ * @see AbstractActionValidatorManager#setExecutorService(ExecutorService)
+ */
+public class ValidationExecutor {
+
+    private static final ThreadLocal runningTask = new ThreadLocal();
+
+    private final ExecutorService executorService;
+
+
+    public ValidationExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Returns the executor of the current {@link ActionValidatorManager} if tasks reporting to
+     * <code>validatorContext</code> can run in parallel, so that validators can hand independent parts of their work
+     * to it.
+     *
+     * @param validatorContext the context the tasks would report to
+     * @return the executor to run the tasks on, or <tt>null</tt> if they must run on the calling thread
+     */
+    public static ValidationExecutor getParallelExecutor(ValidatorContext validatorContext) {
+        ActionValidatorManager manager = ActionValidatorManagerFactory.getInstance();
+
+        if (manager instanceof AbstractActionValidatorManager) {
+            ValidationExecutor executor = ((AbstractActionValidatorManager) manager).getValidationExecutor();
+
+            if ((executor != null) && executor.canRunInParallel(validatorContext)) {
+                return executor;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether tasks reporting to <code>validatorContext</code> may run in parallel. They may not from a task
+     * already, nor for a context prefixing field names from a parent context, such as one of a nested visitor, as
+     * their errors could not be told apart within a buffer.
+     *
+     * @param validatorContext the context the tasks would report to
+     * @return true if tasks can run in parallel
+     */
+    public boolean canRunInParallel(ValidatorContext validatorContext) {
+        return (runningTask.get() == null)
+                && !(validatorContext instanceof VisitorFieldValidator.AppendingValidatorContext);
+    }
+
+    /**
+     * Runs <code>tasks</code> in parallel and adds the errors they reported to <code>validatorContext</code> in the
+     * order of the tasks. If a task fails, the first failure is rethrown once all tasks are done, the errors of the
+     * tasks before it having been added.
+     *
+     * @param tasks            the tasks to run
+     * @param validatorContext the context to add errors to
+     * @throws ValidationException if a task failed with one
+     */
+    public void execute(Task[] tasks, ValidatorContext validatorContext) throws ValidationException {
+        ActionContext actionContext = ActionContext.getContext();
+        BufferingValidatorContext[] buffers = new BufferingValidatorContext[tasks.length];
+        DeferringActionInvocation[] invocations = new DeferringActionInvocation[tasks.length];
+        Future[] futures = new Future[tasks.length];
+
+        for (int i = 0; i < tasks.length; i++) {
+            ActionContext taskContext = copyOf(actionContext);
+            ActionInvocation invocation = actionContext.getActionInvocation();
+
+            if (invocation != null) {
+                invocations[i] = new DeferringActionInvocation(invocation, taskContext);
+                taskContext.setActionInvocation(invocations[i]);
+            }
+
+            buffers[i] = new BufferingValidatorContext(validatorContext);
+            futures[i] = executorService.submit(new TaskRunner(tasks[i], buffers[i], taskContext));
+        }
+
+        Throwable failure = null;
+
+        for (int i = 0; i < tasks.length; i++) {
+            try {
+                futures[i].get();
+
+                if (failure == null) {
+                    buffers[i].replay(validatorContext);
+
+                    if (invocations[i] != null) {
+                        invocations[i].replay();
+                    }
+                }
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure instanceof ValidationException) {
+            throw (ValidationException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new ValidationException(failure.toString());
+        }
+    }
+
+    /**
+     * Copies the action context and its value stack for a task, on the thread starting the tasks as neither can be
+     * read safely while another thread uses them.
+     */
+    private static ActionContext copyOf(ActionContext actionContext) {
+        Map contextMap = new HashMap(actionContext.getContextMap());
+        OgnlValueStack parentStack = actionContext.getValueStack();
+
+        if (parentStack != null) {
+            OgnlValueStack stack = new OgnlValueStack(parentStack);
+            stack.getContext().putAll(parentStack.getContext());
+            stack.getContext().put(ActionContext.VALUE_STACK, stack);
+            contextMap.put(ActionContext.VALUE_STACK, stack);
+        }
+
+        return new ActionContext(contextMap);
+    }
+
+
+    /**
+     * A part of a validation that can run in parallel with others.
+     */
+    public interface Task {
+
+        /**
+         * @param validatorContext the context to report errors to
+         * @throws ValidationException
+         */
+        void validate(ValidatorContext validatorContext) throws ValidationException;
+    }
+
+
+    private static class TaskRunner implements Callable {
+        private final Task task;
+        private final ValidatorContext validatorContext;
+        private final ActionContext actionContext;
+
+        TaskRunner(Task task, ValidatorContext validatorContext, ActionContext actionContext) {
+            this.task = task;
+            this.validatorContext = validatorContext;
+            this.actionContext = actionContext;
+        }
+
+        public Object call() throws Exception {
+            ActionContext.setContext(actionContext);
+            runningTask.set(Boolean.TRUE);
+
+            try {
+                task.validate(validatorContext);
+            } finally {
+                runningTask.set(null);
+                ActionContext.setContext(null);
+            }
+
+            return null;
+        }
+    }
+
+
+    /**
+     * The action invocation seen by a task: the listeners registered are kept to be registered with the actual
+     * invocation later on, from the thread which started the tasks, as the invocation is not safe for concurrent use.
+     * The stack and invocation context are the task's copies.
+     */
+    private static class DeferringActionInvocation implements ActionInvocation {
+        private final ActionInvocation invocation;
+        private final ActionContext actionContext;
+        private final List listeners = new ArrayList(1);
+
+        DeferringActionInvocation(ActionInvocation invocation, ActionContext actionContext) {
+            this.invocation = invocation;
+            this.actionContext = actionContext;
+        }
+
+        public Object getAction() {
+            return invocation.getAction();
+        }
+
+        public boolean isExecuted() {
+            return invocation.isExecuted();
+        }
+
+        public ActionContext getInvocationContext() {
+            return actionContext;
+        }
+
+        public ActionProxy getProxy() {
+            return invocation.getProxy();
+        }
+
+        public Result getResult() throws Exception {
+            return invocation.getResult();
+        }
+
+        public String getResultCode() {
+            return invocation.getResultCode();
+        }
+
+        public void setResultCode(String resultCode) {
+            invocation.setResultCode(resultCode);
+        }
+
+        public OgnlValueStack getStack() {
+            return actionContext.getValueStack();
+        }
+
+        public synchronized void addPreResultListener(PreResultListener listener) {
+            listeners.add(listener);
+        }
+
+        public String invoke() throws Exception {
+            throw new IllegalStateException("The action cannot be invoked from a validation task");
+        }
+
+        public String invokeActionOnly() throws Exception {
+            throw new IllegalStateException("The action cannot be invoked from a validation task");
+        }
+
+        synchronized void replay() {
+            for (Iterator iterator = listeners.iterator(); iterator.hasNext();) {
+                invocation.addPreResultListener((PreResultListener) iterator.next());
+            }
+        }
+    }
+
+
+    /**
+     * A validator context reporting errors to a buffer, everything else is delegated to the context the errors are
+     * eventually added to.
+     */
+    private static class BufferingValidatorContext extends DelegatingValidatorContext {
+        private final ValidatorContext parent;
+        private final RecordingValidationAware recorder;
+
+        BufferingValidatorContext(ValidatorContext parent) {
+            this(parent, new RecordingValidationAware());
+        }
+
+        private BufferingValidatorContext(ValidatorContext parent, RecordingValidationAware recorder) {
+            super(recorder, parent, parent);
+            this.parent = parent;
+            this.recorder = recorder;
+        }
+
+        public String getFullFieldName(String fieldName) {
+            return parent.getFullFieldName(fieldName);
+        }
+
+        void replay(ValidatorContext validatorContext) {
+            recorder.replay(validatorContext);
+        }
+    }
+
+
+    /**
+     * Keeps the errors and messages added, in order, to add them to another validator context later on.
+     */
+    private static class RecordingValidationAware extends ValidationAwareSupport {
+        private static final int ACTION_ERROR = 0;
+        private static final int ACTION_MESSAGE = 1;
+        private static final int FIELD_ERROR = 2;
+
+        private final List events = new ArrayList();
+
+        public synchronized void addActionError(String anErrorMessage) {
+            super.addActionError(anErrorMessage);
+            events.add(new Object[]{new Integer(ACTION_ERROR), null, anErrorMessage});
+        }
+
+        public synchronized void addActionMessage(String aMessage) {
+            super.addActionMessage(aMessage);
+            events.add(new Object[]{new Integer(ACTION_MESSAGE), null, aMessage});
+        }
+
+        public synchronized void addFieldError(String fieldName, String errorMessage) {
+            super.addFieldError(fieldName, errorMessage);
+            events.add(new Object[]{new Integer(FIELD_ERROR), fieldName, errorMessage});
+        }
+
+        synchronized void replay(ValidatorContext validatorContext) {
+            for (Iterator iterator = events.iterator(); iterator.hasNext();) {
+                Object[] event = (Object[]) iterator.next();
+
+                switch (((Integer) event[0]).intValue()) {
+                    case ACTION_ERROR:
+                        validatorContext.addActionError((String) event[2]);
+                        break;
+                    case ACTION_MESSAGE:
+                        validatorContext.addActionMessage((String) event[2]);
+                        break;
+                    default:
+                        validatorContext.addFieldError((String) event[1], (String) event[2]);
+                }
+            }
+        }
+    }
+}
@@ -23,9 +23,12 @@ import com.opensymphony.xwork.util.OgnlUtil;
 import com.opensymphony.xwork.validator.ActionValidatorManagerFactory;
 import com.opensymphony.xwork.validator.FieldValidator;
 import com.opensymphony.xwork.validator.ShortCircuitableValidator;
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
+import com.opensymphony.xwork.validator.ValidationExecutor;
 import com.opensymphony.xwork.validator.Validator;
 import com.opensymphony.xwork.validator.ValidatorConfig;
+import com.opensymphony.xwork.validator.ValidatorContext;
 import com.opensymphony.xwork.validator.ValidatorFactory;
 
 /**
@@ -121,7 +124,7 @@ import com.opensymphony.xwork.validator.ValidatorFactory;
  * @author tmjee
  * @version $Date$ $Id$
  */
-public class CollectionFieldValidator extends FieldValidatorSupport {
+public class CollectionFieldValidator extends FieldValidatorSupport implements StatelessValidator {
 	
 	private static final Log LOG = LogFactory.getLog(CollectionFieldValidator.class);
 
@@ -163,31 +166,21 @@ public class CollectionFieldValidator extends FieldValidatorSupport {
 			}
 			
 			// validate 
-			Validator validator = ValidatorFactory.getValidator(new ValidatorConfig(validatorRef, validatorParams));
-			validator.setValidatorContext(getValidatorContext());
-			if (validatorParams.containsKey("defaultMessage")) {
-				validator.setDefaultMessage((String) validatorParams.get("defaultMessage"));
-			}
-			if (validatorParams.containsKey("messageKey")) {
-				validator.setDefaultMessage((String) validatorParams.get("messageKey"));
-			}
-			if (validatorParams.containsKey("shortCircuit") && (validator instanceof ShortCircuitableValidator))  {
-				((ShortCircuitableValidator)validator).setShortCircuit(validatorParams.get("shortCircuit").equals("true"));
+			ValidationExecutor executor = ValidationExecutor.getParallelExecutor(getValidatorContext());
+			if (executor != null && result.size() > 1) {
+				// the referenced validator is named after each property, so every task needs its own
+				ValidationExecutor.Task[] tasks = new ValidationExecutor.Task[result.size()];
+				for (int a = 0; a < tasks.length; a++) {
+					tasks[a] = new PropertyTask(object, (String) result.get(a));
+				}
+				executor.execute(tasks, getValidatorContext());
+				return;
 			}
 			
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("validatorRef ["+validatorRef+"] found to be referencing to validator ["+validator+"]");
-				LOG.debug("injecting parameters ["+validatorParams+"] into validator ["+validator+"]");
-			}
-				
+			Validator validator = buildValidator(getValidatorContext());
 			for(Iterator i = result.iterator(); i.hasNext(); ) {
-				List validators = new ArrayList();
 				String overallPropertyName = (String) i.next();
-				if (validator instanceof FieldValidator)  {
-					((FieldValidator)validator).setFieldName(overallPropertyName);
-				}
-				validators.add(validator);
-				ActionValidatorManagerFactory.getInstance().validate(object, validators, getValidatorContext());
+				validate(object, validator, overallPropertyName, getValidatorContext());
 			}
 		}
 		else {
@@ -198,6 +191,68 @@ public class CollectionFieldValidator extends FieldValidatorSupport {
 	}
 	
 	
+	/**
+	 * Build the validator referenced by <code>validatorRef</code>, reporting to <code>validatorContext</code>.
+	 * 
+	 * @param validatorContext
+	 * @return
+	 */
+	private Validator buildValidator(ValidatorContext validatorContext) {
+		Validator validator = ValidatorFactory.getValidator(new ValidatorConfig(validatorRef, validatorParams));
+		validator.setValidatorContext(validatorContext);
+		if (validatorParams.containsKey("defaultMessage")) {
+			validator.setDefaultMessage((String) validatorParams.get("defaultMessage"));
+		}
+		if (validatorParams.containsKey("messageKey")) {
+			validator.setDefaultMessage((String) validatorParams.get("messageKey"));
+		}
+		if (validatorParams.containsKey("shortCircuit") && (validator instanceof ShortCircuitableValidator))  {
+			((ShortCircuitableValidator)validator).setShortCircuit(validatorParams.get("shortCircuit").equals("true"));
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("validatorRef ["+validatorRef+"] found to be referencing to validator ["+validator+"]");
+			LOG.debug("injecting parameters ["+validatorParams+"] into validator ["+validator+"]");
+		}
+		return validator;
+	}
+	
+	/**
+	 * Validate the property named <code>overallPropertyName</code> of <code>object</code> 
+	 * with <code>validator</code>.
+	 * 
+	 * @param object
+	 * @param validator
+	 * @param overallPropertyName
+	 * @param validatorContext
+	 * @throws ValidationException
+	 */
+	private void validate(Object object, Validator validator, String overallPropertyName, ValidatorContext validatorContext) throws ValidationException {
+		List validators = new ArrayList();
+		if (validator instanceof FieldValidator)  {
+			((FieldValidator)validator).setFieldName(overallPropertyName);
+		}
+		validators.add(validator);
+		ActionValidatorManagerFactory.getInstance().validate(object, validators, validatorContext);
+	}
+	
+	/**
+	 * Validate one property of the collection, possibly on another thread.
+	 */
+	private class PropertyTask implements ValidationExecutor.Task {
+		private final Object object;
+		private final String overallPropertyName;
+		
+		PropertyTask(Object object, String overallPropertyName) {
+			this.object = object;
+			this.overallPropertyName = overallPropertyName;
+		}
+		
+		public void validate(ValidatorContext validatorContext) throws ValidationException {
+			CollectionFieldValidator.this.validate(object, buildValidator(validatorContext), overallPropertyName, validatorContext);
+		}
+	}
+	
 	/**
 	 * Populate <code>result</code> with a list of property name, eg.
 	 * if we have a list of Person object with a property called "name". If we have 
@@ -6,6 +6,7 @@ package com.opensymphony.xwork.validator.validators;
 
 import com.opensymphony.xwork.ActionContext;
 import com.opensymphony.xwork.util.XWorkConverter;
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 import java.util.Map;
@@ -44,7 +45,7 @@ import java.util.Map;
  * 
  * @version $Date $Id: ConversionErrorFieldValidator.java 973 2006-04-02 09:54:11Z tmjee $
  */
-public class ConversionErrorFieldValidator extends RepopulateConversionErrorFieldValidatorSupport {
+public class ConversionErrorFieldValidator extends RepopulateConversionErrorFieldValidatorSupport implements StatelessValidator {
 
     /**
      * The validation implementation must guarantee that setValidatorContext will
@@ -60,11 +61,13 @@ public class ConversionErrorFieldValidator extends RepopulateConversionErrorFiel
         Map conversionErrors = context.getConversionErrors();
         
         if (conversionErrors.containsKey(fullFieldName)) {
-            if ((defaultMessage == null) || (defaultMessage.trim().equals(""))) {
-                defaultMessage = XWorkConverter.getConversionErrorMessage(fullFieldName, context.getValueStack());
+            // the message depends on the field and locale, keep it out of this possibly shared validator
+            String message = defaultMessage;
+            if ((message == null) || (message.trim().equals(""))) {
+                message = XWorkConverter.getConversionErrorMessage(fullFieldName, context.getValueStack());
             }
             
-            addFieldError(fieldName, object);
+            addFieldError(fieldName, object, message);
         }
     }
     
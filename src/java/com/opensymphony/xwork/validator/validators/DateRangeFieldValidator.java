@@ -4,6 +4,8 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
+
 import java.util.Date;
 
 
@@ -59,7 +61,7 @@ import java.util.Date;
  * @author Jason Carreira
  * @version $Date: 2006-03-30 00:39:17 +0900 (木, 30 3 2006) $ $Id: DateRangeFieldValidator.java 964 2006-03-29 15:39:17Z davsclaus $
  */
-public class DateRangeFieldValidator extends AbstractRangeValidator {
+public class DateRangeFieldValidator extends AbstractRangeValidator implements StatelessValidator {
 
     private Date max;
     private Date min;
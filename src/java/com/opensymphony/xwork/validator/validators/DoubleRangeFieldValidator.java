@@ -5,6 +5,7 @@
 
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 /**
@@ -59,13 +60,14 @@ and ${maxExclusive} (exclusive)&lt;/message&gt;
  *
  * @version $Id: DoubleRangeFieldValidator.java 866 2006-03-04 09:59:20Z rainerh $
  */
-public class DoubleRangeFieldValidator extends FieldValidatorSupport {
+public class DoubleRangeFieldValidator extends FieldValidatorSupport implements StatelessValidator {
     
     String maxInclusive = null;
     String minInclusive = null;
     String minExclusive = null;
     String maxExclusive = null;
 
+    // parsed once when set, validate() only reads them as the validator may be shared
     Double maxInclusiveValue = null;
     Double minInclusiveValue = null;
     Double minExclusiveValue = null;
@@ -84,7 +86,6 @@ public class DoubleRangeFieldValidator extends FieldValidatorSupport {
             return;
         }
 
-        parseParameterValues();
         if ((maxInclusiveValue != null && value.compareTo(maxInclusiveValue) > 0) ||
                 (minInclusiveValue != null && value.compareTo(minInclusiveValue) < 0) ||
                 (maxExclusiveValue != null && value.compareTo(maxExclusiveValue) >= 0) ||
@@ -93,13 +94,6 @@ public class DoubleRangeFieldValidator extends FieldValidatorSupport {
         }
     }
 
-    private void parseParameterValues() {
-        this.minInclusiveValue = parseDouble(minInclusive);
-        this.maxInclusiveValue = parseDouble(maxInclusive);
-        this.minExclusiveValue = parseDouble(minExclusive);
-        this.maxExclusiveValue = parseDouble(maxExclusive);
-    }
-
     private Double parseDouble (String value) {
         if (value != null) {
             try {
@@ -115,6 +109,7 @@ public class DoubleRangeFieldValidator extends FieldValidatorSupport {
 
     public void setMaxInclusive(String maxInclusive) {
         this.maxInclusive = maxInclusive;
+        this.maxInclusiveValue = parseDouble(maxInclusive);
     }
 
     public String getMaxInclusive() {
@@ -123,6 +118,7 @@ public class DoubleRangeFieldValidator extends FieldValidatorSupport {
 
     public void setMinInclusive(String minInclusive) {
         this.minInclusive = minInclusive;
+        this.minInclusiveValue = parseDouble(minInclusive);
     }
 
     public String getMinInclusive() {
@@ -135,6 +131,7 @@ public class DoubleRangeFieldValidator extends FieldValidatorSupport {
 
     public void setMinExclusive(String minExclusive) {
         this.minExclusive = minExclusive;
+        this.minExclusiveValue = parseDouble(minExclusive);
     }
 
     public String getMaxExclusive() {
@@ -143,5 +140,6 @@ public class DoubleRangeFieldValidator extends FieldValidatorSupport {
 
     public void setMaxExclusive(String maxExclusive) {
         this.maxExclusive = maxExclusive;
+        this.maxExclusiveValue = parseDouble(maxExclusive);
     }
 }
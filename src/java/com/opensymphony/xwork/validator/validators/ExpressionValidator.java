@@ -4,6 +4,7 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 
@@ -33,7 +34,7 @@ import com.opensymphony.xwork.validator.ValidationException;
  *
  * @author Jason Carreira
  */
-public class ExpressionValidator extends ValidatorSupport {
+public class ExpressionValidator extends ValidatorSupport implements StatelessValidator {
 
     private String expression;
 
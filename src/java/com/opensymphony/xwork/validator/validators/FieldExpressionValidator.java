@@ -4,6 +4,7 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 
@@ -47,7 +48,7 @@ import com.opensymphony.xwork.validator.ValidationException;
  * @author $Author: rainerh $
  * @version $Revision: 866 $
  */
-public class FieldExpressionValidator extends FieldValidatorSupport {
+public class FieldExpressionValidator extends FieldValidatorSupport implements StatelessValidator {
 
     private String expression;
 
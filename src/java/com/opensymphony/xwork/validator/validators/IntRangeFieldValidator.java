@@ -4,6 +4,7 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 
 /**
  * <!-- START SNIPPET: javadoc -->
@@ -48,7 +49,7 @@ package com.opensymphony.xwork.validator.validators;
  * @author Jason Carreira
  * @version $Date: 2006-03-04 00:24:08 +0900 (土, 04 3 2006) $ $Id: IntRangeFieldValidator.java 861 2006-03-03 15:24:08Z rainerh $
  */
-public class IntRangeFieldValidator extends AbstractRangeValidator {
+public class IntRangeFieldValidator extends AbstractRangeValidator implements StatelessValidator {
 
     Integer max = null;
     Integer min = null;
@@ -5,16 +5,19 @@
 
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.util.BoundedCache;
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
 /**
  * <!-- START SNIPPET: javadoc -->
  * Validates a string field using a regular expression.
  * <!-- END SNIPPET: javadoc -->
  * <p/>
+ * Compiled expressions are shared by all regular expression validators through {@link #getPattern(String, int)}.
+ * <p/>
  * 
  * 
  * <!-- START SNIPPET: parameters -->
@@ -48,10 +51,15 @@ import java.util.regex.Matcher;
  * @author Quake Wang
  * @version $Date: 2006-04-16 18:23:32 +0900 (日, 16 4 2006) $ $Revision: 1000 $
  */
-public class RegexFieldValidator extends FieldValidatorSupport {
+public class RegexFieldValidator extends FieldValidatorSupport implements StatelessValidator {
+
+    public static final int DEFAULT_PATTERN_CACHE_MAX_SIZE = 1000;
+
+    private static final BoundedCache patterns = new BoundedCache(DEFAULT_PATTERN_CACHE_MAX_SIZE);
 
     private String expression;
     private boolean caseSensitive = true;
+    private volatile Pattern pattern;
 
     public void validate(Object object) throws ValidationException {
         String fieldName = getFieldName();
@@ -74,18 +82,52 @@ public class RegexFieldValidator extends FieldValidatorSupport {
         }
 
         // match against expression
-        Pattern pattern;
-        if (isCaseSensitive()) {
-            pattern = Pattern.compile(expression);
-        } else {
-            pattern = Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
+        if (!getPattern().matcher(str).matches()) {
+            addFieldError(fieldName, object);
         }
+    }
 
-        Matcher matcher = pattern.matcher(str);
+    /**
+     * @return the compiled expression, honouring {@link #isCaseSensitive()}
+     */
+    protected Pattern getPattern() {
+        Pattern compiled = pattern;
 
-        if (!matcher.matches()) {
-            addFieldError(fieldName, object);
+        if (compiled == null) {
+            compiled = getPattern(expression, isCaseSensitive() ? 0 : Pattern.CASE_INSENSITIVE);
+            pattern = compiled;
         }
+
+        return compiled;
+    }
+
+    /**
+     * Returns <code>expression</code> compiled with <code>flags</code>, compiling it on first use only. Compiled
+     * patterns are immutable and thus shared by all validators.
+     *
+     * @param expression the regular expression
+     * @param flags      the match flags, see {@link Pattern#compile(String, int)}
+     * @return the compiled pattern
+     */
+    public static Pattern getPattern(String expression, int flags) {
+        PatternKey key = new PatternKey(expression, flags);
+        Pattern compiled = (Pattern) patterns.get(key);
+
+        if (compiled == null) {
+            compiled = Pattern.compile(expression, flags);
+            patterns.put(key, compiled);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Returns the cache of compiled expressions, mainly to monitor its hit, miss and eviction counts.
+     *
+     * @return the pattern cache
+     */
+    public static BoundedCache getPatternCache() {
+        return patterns;
     }
 
     /**
@@ -100,6 +142,7 @@ public class RegexFieldValidator extends FieldValidatorSupport {
      */
     public void setExpression(String expression) {
         this.expression = expression;
+        this.pattern = null;
     }
 
     /**
@@ -116,6 +159,41 @@ public class RegexFieldValidator extends FieldValidatorSupport {
      */
     public void setCaseSensitive(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
+        this.pattern = null;
     }
 
+
+
+    /**
+     * Cache key of a compiled expression, the same expression compiled with other flags is another pattern.
+     */
+    private static class PatternKey {
+        private final String expression;
+        private final int flags;
+        private final int hashCode;
+
+        PatternKey(String expression, int flags) {
+            this.expression = expression;
+            this.flags = flags;
+            this.hashCode = (31 * expression.hashCode()) + flags;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof PatternKey)) {
+                return false;
+            }
+
+            final PatternKey patternKey = (PatternKey) o;
+
+            return (flags == patternKey.flags) && expression.equals(patternKey.expression);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -4,6 +4,7 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 
@@ -48,7 +49,7 @@ import com.opensymphony.xwork.validator.ValidationException;
  * @author rainerh
  * @version $Revision: 866 $
  */
-public class RequiredFieldValidator extends FieldValidatorSupport {
+public class RequiredFieldValidator extends FieldValidatorSupport implements StatelessValidator {
 
     public void validate(Object object) throws ValidationException {
         String fieldName = getFieldName();
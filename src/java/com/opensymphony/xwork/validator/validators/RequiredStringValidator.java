@@ -4,6 +4,7 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 
@@ -47,7 +48,7 @@ import com.opensymphony.xwork.validator.ValidationException;
  * @author rainerh
  * @version $Date: 2006-03-04 18:59:20 +0900 (土, 04 3 2006) $ $Id: RequiredStringValidator.java 866 2006-03-04 09:59:20Z rainerh $
  */
-public class RequiredStringValidator extends FieldValidatorSupport {
+public class RequiredStringValidator extends FieldValidatorSupport implements StatelessValidator {
 
     private boolean doTrim = true;
 
@@ -4,6 +4,7 @@
  */
 package com.opensymphony.xwork.validator.validators;
 
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 /**
@@ -56,7 +57,7 @@ import com.opensymphony.xwork.validator.ValidationException;
  * @author tmjee
  * @version $Date: 2006-10-06 00:40:06 +0900 (金, 06 10 2006) $ $Id: StringLengthFieldValidator.java 1153 2006-10-05 15:40:06Z tm_jee $
  */
-public class StringLengthFieldValidator extends FieldValidatorSupport {
+public class StringLengthFieldValidator extends FieldValidatorSupport implements StatelessValidator {
 
     private boolean doTrim = true;
     private int maxLength = -1;
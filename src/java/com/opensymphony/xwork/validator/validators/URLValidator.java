@@ -5,6 +5,7 @@
 package com.opensymphony.xwork.validator.validators;
 
 import com.opensymphony.util.TextUtils;
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
 
 
@@ -50,7 +51,7 @@ import com.opensymphony.xwork.validator.ValidationException;
  * @author $Author: rainerh $
  * @version $Date: 2006-03-04 00:24:08 +0900 (土, 04 3 2006) $ $Revision: 861 $
  */
-public class URLValidator extends FieldValidatorSupport {
+public class URLValidator extends FieldValidatorSupport implements StatelessValidator {
 
     public void validate(Object object) throws ValidationException {
         String fieldName = getFieldName();
@@ -18,6 +18,10 @@ import java.util.List;
 
 /**
  * Abstract implementation of the Validator interface suitable for subclassing.
+ * <p/>
+ * The validator context is kept per thread and {@link #validate(Object, ValidatorContext)} is provided, so that a
+ * subclass keeping nothing but its configuration in fields can declare itself a {@link StatelessValidator} and be
+ * shared by all validations. Subclasses that do not are built for every validation, as before.
  *
  * @author Jason Carreira
  * @author tmjee
@@ -28,7 +32,7 @@ public abstract class ValidatorSupport implements Validator, ShortCircuitableVal
     protected final Log log = LogFactory.getLog(this.getClass());
     protected String defaultMessage = "";
     protected String messageKey = null;
-    private ValidatorContext validatorContext;
+    private final ThreadLocal validatorContext = new ThreadLocal();
     private boolean shortCircuit;
     private boolean parse = false;
     private String type;
@@ -52,6 +56,19 @@ public abstract class ValidatorSupport implements Validator, ShortCircuitableVal
     }
 
     public String getMessage(Object object) {
+        return getMessage(object, defaultMessage);
+    }
+
+    /**
+     * Returns the message as {@link #getMessage(Object)} does, but falling back to <code>defaultMessage</code> rather
+     * than to the configured default message. Validators computing their fallback per validation use it so that
+     * they need not store it in a field of a possibly shared instance.
+     *
+     * @param object         the object being validated
+     * @param defaultMessage the message to use if there is no message key or no text for it
+     * @return the message
+     */
+    protected String getMessage(Object object, String defaultMessage) {
         String message;
         OgnlValueStack stack = ActionContext.getContext().getValueStack();
         boolean pop = false;
@@ -67,6 +84,7 @@ public abstract class ValidatorSupport implements Validator, ShortCircuitableVal
             if ((defaultMessage == null) || (defaultMessage.trim().equals(""))) {
                 defaultMessage = messageKey;
             }
+            ValidatorContext validatorContext = getValidatorContext();
             if ( validatorContext == null) {
                 validatorContext = new DelegatingValidatorContext(object);
             }
@@ -130,12 +148,33 @@ public abstract class ValidatorSupport implements Validator, ShortCircuitableVal
         return shortCircuit;
     }
 
+    /**
+     * Validates <code>object</code> with <code>validatorContext</code> set as the validator context of the current
+     * thread for the duration of the call. This implements {@link StatelessValidator#validate(Object, ValidatorContext)}
+     * for subclasses declaring that interface.
+     */
+    public void validate(Object object, ValidatorContext validatorContext) throws ValidationException {
+        // keep the context of an enclosing validation by this validator, eg. a visitor validating a tree
+        ValidatorContext previous = getValidatorContext();
+        setValidatorContext(validatorContext);
+
+        try {
+            validate(object);
+        } finally {
+            setValidatorContext(previous);
+        }
+    }
+
     public void setValidatorContext(ValidatorContext validatorContext) {
-        this.validatorContext = validatorContext;
+        if (validatorContext == null) {
+            this.validatorContext.remove();
+        } else {
+            this.validatorContext.set(validatorContext);
+        }
     }
 
     public ValidatorContext getValidatorContext() {
-        return validatorContext;
+        return (ValidatorContext) validatorContext.get();
     }
 
     public void setValidatorType(String type) {
@@ -190,10 +229,14 @@ public abstract class ValidatorSupport implements Validator, ShortCircuitableVal
     }
 
     protected void addActionError(Object object) {
-        validatorContext.addActionError(getMessage(object));
+        getValidatorContext().addActionError(getMessage(object));
     }
 
     protected void addFieldError(String propertyName, Object object) {
-        validatorContext.addFieldError(propertyName, getMessage(object));
+        getValidatorContext().addFieldError(propertyName, getMessage(object));
+    }
+
+    protected void addFieldError(String propertyName, Object object, String defaultMessage) {
+        getValidatorContext().addFieldError(propertyName, getMessage(object, defaultMessage));
     }
 }
@@ -8,7 +8,9 @@ import com.opensymphony.xwork.ActionContext;
 import com.opensymphony.xwork.util.OgnlValueStack;
 import com.opensymphony.xwork.validator.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 
 /**
@@ -64,7 +66,7 @@ import java.util.Collection;
  * @author Rainer Hermanns
  * @version $Date: 2007-11-22 23:52:41 +0900 (木, 22 11 2007) $ $Id: VisitorFieldValidator.java 1677 2007-11-22 14:52:41Z tm_jee $
  */
-public class VisitorFieldValidator extends FieldValidatorSupport {
+public class VisitorFieldValidator extends FieldValidatorSupport implements StatelessValidator {
 
     private String context;
     private boolean appendPrefix = true;
@@ -129,6 +131,22 @@ public class VisitorFieldValidator extends FieldValidatorSupport {
         if ( array == null) {
             return;
         }
+
+        ValidationExecutor executor = ValidationExecutor.getParallelExecutor(getValidatorContext());
+
+        if ((executor != null) && (array.length > 1)) {
+            List tasks = new ArrayList(array.length);
+
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] != null) {
+                    tasks.add(new ElementTask(fieldName + "[" + i + "]", array[i], visitorContext));
+                }
+            }
+
+            executor.execute((ValidationExecutor.Task[]) tasks.toArray(new ValidationExecutor.Task[tasks.size()]), getValidatorContext());
+            return;
+        }
+
         for (int i = 0; i < array.length; i++) {
             Object o = array[i];
             if ( o != null ) {
@@ -155,6 +173,33 @@ public class VisitorFieldValidator extends FieldValidatorSupport {
     }
 
 
+    /**
+     * Validates one element of a visited collection, possibly on another thread.
+     */
+    private class ElementTask implements ValidationExecutor.Task {
+        private final String fieldName;
+        private final Object element;
+        private final String visitorContext;
+
+        ElementTask(String fieldName, Object element, String visitorContext) {
+            this.fieldName = fieldName;
+            this.element = element;
+            this.visitorContext = visitorContext;
+        }
+
+        public void validate(ValidatorContext validatorContext) throws ValidationException {
+            ValidatorContext previous = getValidatorContext();
+            setValidatorContext(validatorContext);
+
+            try {
+                validateObject(fieldName, element, visitorContext);
+            } finally {
+                setValidatorContext(previous);
+            }
+        }
+    }
+
+
     public class AppendingValidatorContext extends DelegatingValidatorContext {
         private Object o;
         private String field;
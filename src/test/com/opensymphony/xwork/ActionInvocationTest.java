@@ -6,6 +6,7 @@ package com.opensymphony.xwork;
 
 import com.opensymphony.xwork.config.ConfigurationManager;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
 
 
@@ -40,6 +41,18 @@ public class ActionInvocationTest extends XWorkTestCase {
         }
     }
 
+    public void testActionMethodLookupIsCached() throws Exception {
+        Method method = DefaultActionInvocation.getActionMethod(SimpleAction.class, "commandMethod");
+        assertEquals("commandMethod", method.getName());
+        assertSame(method, DefaultActionInvocation.getActionMethod(SimpleAction.class, "commandMethod"));
+
+        assertEquals("execute", DefaultActionInvocation.getActionMethod(ActionSupport.class, "execute").getName());
+        assertEquals("doInput", DefaultActionInvocation.getActionMethod(ActionSupport.class, "input").getName());
+
+        assertNull(DefaultActionInvocation.getActionMethod(SimpleAction.class, "noSuchMethod"));
+        assertNull(DefaultActionInvocation.getActionMethod(SimpleAction.class, "noSuchMethod"));
+    }
+
     protected void setUp() throws Exception {
         super.setUp();
 
@@ -47,4 +60,5 @@ public class ActionInvocationTest extends XWorkTestCase {
         ConfigurationManager.clearConfigurationProviders();
         ConfigurationManager.getConfiguration().reload();
     }
+
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork;
+
+import com.opensymphony.xwork.config.ConfigurationManager;
+import com.opensymphony.xwork.util.OgnlValueStack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Unit test for the recycling of {@link DefaultActionProxyFactory}.
+ *
+ * @version $Date$ $Id$
+ */
+public class DefaultActionProxyFactoryTest extends XWorkTestCase {
+
+    private ActionProxyFactory oldFactory;
+    private DefaultActionProxyFactory factory;
+
+
+    public void testReleasedProxiesAreReused() throws Exception {
+        factory.setRecycling(true);
+
+        DefaultActionProxy proxy = (DefaultActionProxy) factory.createActionProxy("", "Foo", new HashMap());
+        assertEquals(Action.SUCCESS, proxy.execute());
+
+        DefaultActionInvocation invocation = (DefaultActionInvocation) proxy.getInvocation();
+        Object action = proxy.getAction();
+        OgnlValueStack stack = invocation.getStack();
+        ActionContext actionContext = invocation.getInvocationContext();
+        ActionProxy chained = ((ActionChainResult) invocation.result).getProxy();
+        assertNotNull(chained.getInvocation());
+
+        factory.release(proxy);
+        assertNull(proxy.getInvocation());
+        assertNull(invocation.getAction());
+        assertNull(chained.getInvocation());
+        assertEquals(1, stack.size());
+
+        DefaultActionProxy recycled = (DefaultActionProxy) factory.createActionProxy("", "Foo", new HashMap());
+        assertSame(proxy, recycled);
+        assertSame(invocation, recycled.getInvocation());
+        assertSame(stack, recycled.getInvocation().getStack());
+        assertSame(actionContext, recycled.getInvocation().getInvocationContext());
+        assertSame(stack, actionContext.getValueStack());
+        assertSame(invocation, actionContext.get(ActionContext.ACTION_INVOCATION));
+        assertEquals("Foo", actionContext.getName());
+        assertNotSame(action, recycled.getAction());
+        assertFalse(recycled.getInvocation().isExecuted());
+        assertEquals(2, stack.size());
+
+        assertEquals(Action.SUCCESS, recycled.execute());
+        assertEquals(17, ((SimpleAction) recycled.getAction()).getFoo());
+    }
+
+    public void testNothingIsReusedUnlessRecycling() throws Exception {
+        ActionProxy proxy = factory.createActionProxy("", "Foo", new HashMap());
+        proxy.execute();
+        factory.release(proxy);
+        assertNotNull(proxy.getInvocation());
+
+        factory.setRecycling(true);
+        ActionProxy keptContext = factory.createActionProxy("", "Foo", new HashMap(), true, false);
+        factory.release(keptContext);
+        assertNotNull(keptContext.getInvocation());
+        assertNotSame(keptContext, factory.createActionProxy("", "Foo", new HashMap()));
+    }
+
+    public void testDrainEmptiesThePools() throws Exception {
+        factory.setRecycling(true);
+        ActionProxy proxy = factory.createActionProxy("", "Foo", new HashMap());
+        proxy.execute();
+        factory.release(proxy);
+
+        factory.drain();
+        assertTrue(factory.isRecycling());
+        assertNotSame(proxy, factory.createActionProxy("", "Foo", new HashMap()));
+
+        // turning recycling off drains the pools as well
+        proxy = factory.createActionProxy("", "Foo", new HashMap());
+        proxy.execute();
+        factory.release(proxy);
+        factory.setRecycling(false);
+        factory.setRecycling(true);
+        assertNotSame(proxy, factory.createActionProxy("", "Foo", new HashMap()));
+    }
+
+    public void testProxiesAreTrackedInDevMode() throws Exception {
+        factory.setRecycling(true);
+
+        Map extraContext = new HashMap();
+        extraContext.put(ActionContext.DEV_MODE, Boolean.TRUE);
+        DefaultActionProxy proxy = (DefaultActionProxy) factory.createActionProxy("", "Foo", extraContext);
+        assertSame(proxy, proxy.leakReference.get());
+
+        factory.release(proxy);
+        assertNull(proxy.leakReference);
+
+        proxy = (DefaultActionProxy) factory.createActionProxy("", "Foo", new HashMap());
+        assertNull(proxy.leakReference);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        // ensure we're using the default configuration, not simple config
+        ConfigurationManager.clearConfigurationProviders();
+        ConfigurationManager.getConfiguration().reload();
+
+        oldFactory = ActionProxyFactory.getFactory();
+        factory = new DefaultActionProxyFactory();
+        ActionProxyFactory.setFactory(factory);
+    }
+
+    protected void tearDown() throws Exception {
+        ActionProxyFactory.setFactory(oldFactory);
+        super.tearDown();
+    }
+}
@@ -36,17 +36,37 @@ public class ConfigurationManagerTest extends XWorkTestCase {
 
     public void testConfigurationReload() {
         FileManager.setReloadingConfigs(true);
+        ConfigurationWatcher watcher = new ConfigurationWatcher();
+        ConfigurationManager.setConfigurationWatcher(watcher);
+
+        // getting the configuration leaves the checks to the watcher
+        ConfigurationManager.getConfiguration();
+        configProviderMock.verify();
 
         // now check that it reloads
         configProviderMock.expectAndReturn("needsReload", Boolean.TRUE);
         configProviderMock.expect("init", C.isA(Configuration.class));
-        ConfigurationManager.getConfiguration();
+        watcher.checkForChanges();
         configProviderMock.verify();
 
         // this will be called in teardown
         configProviderMock.expect("destroy");
     }
 
+    public void testConfigurationWatcherStartedWhenReloading() {
+        FileManager.setReloadingConfigs(true);
+
+        ConfigurationManager.getConfiguration();
+        ConfigurationWatcher watcher = ConfigurationManager.getConfigurationWatcher();
+        assertNotNull(watcher);
+        assertTrue(watcher.isRunning());
+        assertSame(watcher, ConfigurationManager.getConfigurationWatcher());
+
+        configProviderMock.expect("destroy");
+        ConfigurationManager.destroyConfiguration();
+        assertFalse(watcher.isRunning());
+    }
+
     public void testNoConfigurationReload() {
         FileManager.setReloadingConfigs(false);
 
@@ -232,6 +252,7 @@ public class ConfigurationManagerTest extends XWorkTestCase {
     protected void tearDown() throws Exception {
         super.tearDown();
         ConfigurationManager.destroyConfiguration();
+        FileManager.setReloadingConfigs(false);
     }
     
     
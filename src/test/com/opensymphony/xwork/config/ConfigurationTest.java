@@ -11,6 +11,9 @@ import com.opensymphony.xwork.config.providers.XmlConfigurationProvider;
 import com.opensymphony.xwork.config.entities.InterceptorMapping;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -67,6 +70,25 @@ public class ConfigurationTest extends XWorkTestCase {
         assertNotNull(configuration.getActionConfig("includeTest", "Foo"));
     }
 
+    public void testRuntimeConfigurationIsReplacedOnReload() {
+        Configuration configuration = ConfigurationManager.getConfiguration();
+        RuntimeConfiguration before = configuration.getRuntimeConfiguration();
+        assertNotNull(before.getActionConfig("includeTest", "includeTest"));
+
+        try {
+            ((Map) before.getActionConfigs().get("includeTest")).remove("includeTest");
+            fail("runtime configuration should not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        configuration.reload();
+        RuntimeConfiguration after = configuration.getRuntimeConfiguration();
+        assertNotSame(before, after);
+        assertNotNull(before.getActionConfig("includeTest", "includeTest"));
+        assertNotNull(after.getActionConfig("includeTest", "includeTest"));
+    }
+
     public void testGlobalResults() {
         try {
             ActionProxy proxy = ActionProxyFactory.getFactory().createActionProxy("", "Foo", null);
@@ -156,6 +178,39 @@ public class ConfigurationTest extends XWorkTestCase {
         assertNotNull(configuration.getActionConfig("", MockConfigurationProvider.FOO_ACTION_NAME));
     }
 
+    public void testPackagesArePublishedOnlyOnceReloaded() throws Exception {
+        final Configuration configuration = ConfigurationManager.getConfiguration();
+        final Set before = new HashSet(configuration.getPackageConfigNames());
+        final Set seenByOthers = new HashSet();
+        final Set seenByReload = new HashSet();
+
+        ConfigurationManager.addConfigurationProvider(new MockConfigurationProvider() {
+            public void init(Configuration configuration) {
+                super.init(configuration);
+                seenByReload.addAll(configuration.getPackageConfigNames());
+
+                final Configuration c = configuration;
+                Thread reader = new Thread() {
+                    public void run() {
+                        seenByOthers.addAll(c.getPackageConfigNames());
+                    }
+                };
+                reader.start();
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        configuration.reload();
+
+        // other threads kept seeing every package of the previous configuration while it was reloading
+        assertEquals(before, seenByOthers);
+        assertFalse(seenByReload.isEmpty());
+        assertEquals(seenByReload, configuration.getPackageConfigNames());
+    }
+
     public void testMultipleInheritance() {
         try {
             ActionProxy proxy;
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.config;
+
+import com.opensymphony.xwork.XWorkTestCase;
+
+import java.io.File;
+
+
+/**
+ * Unit test for {@link ConfigurationWatcher}.
+ *
+ * @version $Date$ $Id$
+ */
+public class ConfigurationWatcherTest extends XWorkTestCase {
+
+    public void testCallbackRunsOncePerChange() throws Exception {
+        File file = File.createTempFile("xwork-watched", ".xml");
+        file.deleteOnExit();
+        file.setLastModified(1000000000L);
+
+        final int[] changes = new int[1];
+        ConfigurationWatcher watcher = new ConfigurationWatcher();
+        watcher.watch("watched.xml", file.toURI().toURL(), new Runnable() {
+            public void run() {
+                changes[0]++;
+            }
+        });
+
+        watcher.checkForChanges();
+        assertEquals(0, changes[0]);
+
+        file.setLastModified(2000000000L);
+        assertTrue(watcher.hasChanges());
+        watcher.checkForChanges();
+        assertEquals(1, changes[0]);
+
+        // nothing loads the file again, the change is still only reported once
+        watcher.checkForChanges();
+        assertEquals(1, changes[0]);
+
+        file.setLastModified(3000000000L);
+        watcher.checkForChanges();
+        assertEquals(2, changes[0]);
+
+        watcher.unwatch("watched.xml");
+        file.delete();
+    }
+}
@@ -31,4 +31,53 @@ public class ActionConfigTest extends XWorkTestCase {
         assertTrue("Wrong toString(): "+cfg.toString(), 
             "{ActionConfig foo.Bar - foo/xwork.xml:10:12}".equals(cfg.toString()));
     }
+
+    public void testInterceptorPlan() {
+        ActionConfig cfg = new ActionConfig();
+        InterceptorMapping first = new InterceptorMapping("first", null);
+        InterceptorMapping second = new InterceptorMapping("second", null);
+        cfg.addInterceptor(first);
+
+        assertEquals(1, cfg.getInterceptorPlan().length);
+        assertNotSame(cfg.getInterceptorPlan(), cfg.getInterceptorPlan());
+
+        cfg.buildInterceptorPlan();
+        InterceptorMapping[] plan = cfg.getInterceptorPlan();
+        assertSame(plan, cfg.getInterceptorPlan());
+        assertSame(first, plan[0]);
+
+        cfg.addInterceptor(second);
+        plan = cfg.getInterceptorPlan();
+        assertEquals(2, plan.length);
+        assertSame(second, plan[1]);
+    }
+
+    public void testResultTable() {
+        ActionConfig cfg = new ActionConfig();
+        ResultConfig success = new ResultConfig("success", "foo.Success");
+        ResultConfig wildcard = new ResultConfig(ActionConfig.WILDCARD_RESULT, "foo.Wildcard");
+        cfg.addResultConfig(success);
+
+        assertSame(success, cfg.getResultConfig("success"));
+        assertNull(cfg.getResultConfig("input"));
+        assertNull(cfg.getResultConfig(null));
+
+        cfg.buildResultTable();
+        assertSame(success, cfg.getResultConfig("success"));
+        assertNull(cfg.getResultConfig("input"));
+
+        // the table is a snapshot until the results are changed through the config
+        cfg.getResults().put("input", new ResultConfig("input", "foo.Input"));
+        assertNull(cfg.getResultConfig("input"));
+
+        cfg.addResultConfig(wildcard);
+        assertEquals("foo.Input", cfg.getResultConfig("input").getClassName());
+        assertSame(wildcard, cfg.getResultConfig("error"));
+        assertSame(wildcard, cfg.getResultConfig(null));
+
+        cfg.buildResultTable();
+        assertSame(success, cfg.getResultConfig("success"));
+        assertSame(wildcard, cfg.getResultConfig("error"));
+        assertSame(wildcard, cfg.getResultConfig(null));
+    }
 }
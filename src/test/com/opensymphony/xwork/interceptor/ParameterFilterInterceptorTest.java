@@ -88,6 +88,29 @@ public class ParameterFilterInterceptorTest extends TestCase {
     }
   
     
+    public void testLongestRuleDecides() throws Exception {
+        runFilterTest("person.address", "person,person.address.createDate,personDao", false,
+                new String[] {"person.name", "person.address.street", "person.address.createDate", "personDao.x", "personal"});
+        Collection paramNames=getParameterNames();
+        assertEquals(2, paramNames.size());
+        assertTrue(paramNames.contains("person.address.street"));
+        assertTrue(paramNames.contains("personal"));
+    }
+
+    public void testDecisionsAreCachedUntilRulesChange() throws Exception {
+        interceptor.setBlocked("blah");
+        ParameterNameFilter filter = interceptor.getNameFilter();
+        assertFalse(filter.isAllowed("blah[0]"));
+        assertFalse(filter.isAllowed("blah[0]"));
+        assertTrue(filter.isAllowed("blahdeblah"));
+        assertEquals(1, filter.getDecisionCache().getHitCount());
+        assertEquals(2, filter.getDecisionCache().size());
+
+        interceptor.setDefaultBlock(true);
+        assertNotSame(filter, interceptor.getNameFilter());
+        assertFalse(interceptor.getNameFilter().isAllowed("blahdeblah"));
+    }
+
     private void runFilterTest(String allowed, String blocked, boolean defaultBlocked, String[] paramNames) throws Exception {
         interceptor.setAllowed(allowed);
         interceptor.setBlocked(blocked);
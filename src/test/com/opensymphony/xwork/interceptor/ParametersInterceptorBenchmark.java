@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.interceptor;
+
+import com.opensymphony.xwork.SimpleAction;
+import com.opensymphony.xwork.util.OgnlValueStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+
+/**
+ * Measures what binding a parameter costs in {@link ParametersInterceptor} as the number of parameters sharing a
+ * prefix grows. Not part of the test suite, run it with <tt>java</tt> and read the figures it prints.
+ *
+ * @version $Date$ $Id$
+ */
+public class ParametersInterceptorBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = new int[]{10, 100, 1000};
+
+        for (int i = 0; i < sizes.length; i++) {
+            int fields = sizes[i];
+            Map params = new HashMap();
+            for (int j = 0; j < fields; j++) {
+                params.put("settings.field" + j, "value" + j);
+            }
+
+            ParametersInterceptor pi = new ParametersInterceptor();
+            SimpleAction action = new SimpleAction();
+            OgnlValueStack stack = new OgnlValueStack();
+            stack.push(action);
+
+            int rounds = 20;
+            long start = System.currentTimeMillis();
+            for (int round = 0; round < rounds; round++) {
+                action.setSettings(new Properties());
+                pi.setParameters(action, stack, params);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+
+            if (action.getSettings().size() != fields) {
+                throw new IllegalStateException("Bound " + action.getSettings().size() + " of " + fields + " parameters");
+            }
+            System.out.println("Bound " + fields + " parameters in " + ((elapsed * 1000.0) / (rounds * fields)) + " microseconds per parameter");
+        }
+    }
+}
@@ -9,9 +9,15 @@ import com.opensymphony.xwork.config.ConfigurationManager;
 import com.opensymphony.xwork.config.providers.MockConfigurationProvider;
 import com.opensymphony.xwork.mock.MockActionInvocation;
 import com.opensymphony.xwork.util.OgnlValueStack;
+import ognl.OgnlContext;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
 
 
 /**
@@ -128,6 +134,96 @@ public class ParametersInterceptorTest extends XWorkTestCase {
         assertEquals("This is blah", ((SimpleAction) proxy.getAction()).getBlah());
     }
 
+    public void testParametersSharingPrefixAreBoundAsBatch() throws Exception {
+        Map params = new HashMap();
+        params.put("bean.name", "batched");
+        params.put("bean.count", "15");
+        params.put("bean.birth", "not a date");
+        params.put("blah", "This is blah");
+
+        HashMap extraContext = new HashMap();
+        extraContext.put(ActionContext.PARAMETERS, params);
+        extraContext.put(ActionContext.DEV_MODE, Boolean.FALSE);
+
+        ActionProxy proxy = ActionProxyFactory.getFactory().createActionProxy("", MockConfigurationProvider.PARAM_INTERCEPTOR_ACTION_NAME, extraContext);
+        proxy.execute();
+
+        SimpleAction action = (SimpleAction) proxy.getAction();
+        assertEquals("This is blah", action.getBlah());
+        assertNotNull(action.getBean());
+        assertEquals("batched", action.getBean().getName());
+        assertEquals(15, action.getBean().getCount());
+
+        // conversion errors are still reported against the full parameter name
+        Map conversionErrors = proxy.getInvocation().getInvocationContext().getConversionErrors();
+        assertTrue(conversionErrors.containsKey("bean.birth"));
+    }
+
+    public void testParametersSharingPrefixGoThroughOverriddenStack() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor();
+        final Map actual = new HashMap();
+        OgnlValueStack stack = new OgnlValueStack() {
+            public void setValue(String expr, Object value) {
+                actual.put(expr, value);
+            }
+        };
+        SimpleAction action = new SimpleAction();
+        stack.push(action);
+
+        Map parameters = new HashMap();
+        parameters.put("bean.name", "batched");
+        parameters.put("bean.count", "15");
+        pi.setParameters(action, stack, parameters);
+
+        assertEquals(parameters, actual);
+        assertNull(action.getBean());
+    }
+
+    public void testRootIsRestoredAfterBatchFails() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor() {
+            protected void handleException(Object action, OgnlValueStack stack, XworkException e) {
+                throw e;
+            }
+        };
+        SimpleAction action = new SimpleAction();
+        action.setBean(new TestBean());
+        OgnlValueStack stack = new OgnlValueStack();
+        stack.push(action);
+        stack.getContext().put(ActionContext.DEV_MODE, Boolean.TRUE);
+
+        Map parameters = new HashMap();
+        parameters.put("bean.name", "batched");
+        parameters.put("bean.not_a_property", "There is no bean property named like this");
+
+        try {
+            pi.setParameters(action, stack, parameters);
+            fail("the failure should have been rethrown");
+        } catch (XworkException e) {
+            // expected
+        }
+
+        assertEquals("batched", action.getBean().getName());
+        assertSame(stack.getRoot(), ((OgnlContext) stack.getContext()).getRoot());
+    }
+
+    public void testNonexistentBatchedParameterGetsLoggedInDevMode() throws Exception {
+        Map params = new HashMap();
+        params.put("bean.name", "batched");
+        params.put("bean.not_a_property", "There is no bean property named like this");
+
+        HashMap extraContext = new HashMap();
+        extraContext.put(ActionContext.PARAMETERS, params);
+        extraContext.put(ActionContext.DEV_MODE, Boolean.TRUE);
+
+        ActionProxy proxy = ActionProxyFactory.getFactory().createActionProxy("", MockConfigurationProvider.PARAM_INTERCEPTOR_ACTION_NAME, extraContext);
+        proxy.execute();
+
+        SimpleAction action = (SimpleAction) proxy.getAction();
+        assertEquals("batched", action.getBean().getName());
+        assertEquals(1, action.getActionMessages().size());
+        assertTrue(action.getActionMessages().iterator().next().toString().indexOf("bean.not_a_property") > -1);
+    }
+
     public void testNonexistentParametersGetLoggedInDevMode() throws Exception {
         Map params = new HashMap();
         params.put("not_a_property", "There is no action property named like this");
@@ -228,6 +324,150 @@ public class ParametersInterceptorTest extends XWorkTestCase {
         assertEquals(ExcludedPatterns.EXCLUDED_PATTERNS.length, parametersInterceptor.excludeParams.size());
     }
 
+    public void testNameDecisionsAreCached() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor();
+
+        assertTrue(pi.acceptableName("user.name"));
+        assertTrue(pi.acceptableName("user.name"));
+        assertFalse(pi.acceptableName("user.class.classLoader"));
+        assertFalse(pi.acceptableName("user.class.classLoader"));
+
+        assertEquals(2, pi.getNameDecisionCache().getMissCount());
+        assertEquals(2, pi.getNameDecisionCache().getHitCount());
+    }
+
+    public void testOverriddenNameChecksAreNotCached() throws Exception {
+        final Map checked = new HashMap();
+        ParametersInterceptor pi = new ParametersInterceptor() {
+            protected boolean isAccepted(String paramName) {
+                Integer count = (Integer) checked.get(paramName);
+                checked.put(paramName, new Integer((count == null) ? 1 : count.intValue() + 1));
+                return super.isAccepted(paramName);
+            }
+        };
+
+        assertTrue(pi.acceptableName("user.name"));
+        assertTrue(pi.acceptableName("user.name"));
+
+        assertEquals(new Integer(2), checked.get("user.name"));
+        assertEquals(0, pi.getNameDecisionCache().size());
+    }
+
+    public void testExcludePatternsMatchedInOnePass() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor();
+        String[] excluded = new String[]{"session.user", "Session.user", "dojo.x", "servletRequest.x", "a.b.class.c",
+                "a['class'].b", "class[0]"};
+        String[] notExcluded = new String[]{"sessions.user", "user.session", "user.classes", "a.subclasses.b", "blah"};
+
+        for (int i = 0; i < excluded.length; i++) {
+            assertTrue(excluded[i], pi.isExcluded(excluded[i]));
+        }
+        for (int i = 0; i < notExcluded.length; i++) {
+            assertFalse(notExcluded[i], pi.isExcluded(notExcluded[i]));
+        }
+        assertTrue(pi.acceptableName("blah"));
+
+        // patterns added later are picked up as well once signalled, including by the cached decisions
+        pi.excludeParams.add(Pattern.compile("^blah$"));
+        pi.patternsChanged();
+        assertTrue(pi.isExcluded("blah"));
+        assertFalse(pi.acceptableName("blah"));
+
+        // replacing the accepted patterns needs no signal
+        assertTrue(pi.acceptableName("user.name"));
+        pi.acceptParams = new HashSet();
+        pi.acceptParams.add(Pattern.compile("^name$"));
+        assertFalse(pi.acceptableName("user.name"));
+        assertTrue(pi.acceptableName("name"));
+    }
+
+    public void testBindPlansAreReusedPerActionClassAndParameterNames() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor();
+        SimpleAction action = new SimpleAction();
+        OgnlValueStack stack = new OgnlValueStack();
+        stack.push(action);
+
+        Map params = new HashMap();
+        params.put("blah", "first");
+        params.put("name", "first");
+        pi.setParameters(action, stack, params);
+        assertEquals(0, pi.getBindPlanCache().getHitCount());
+        assertEquals(1, pi.getBindPlanCache().getMissCount());
+
+        Map sameNames = new TreeMap();
+        sameNames.put("name", "second");
+        sameNames.put("blah", "second");
+        pi.setParameters(action, stack, sameNames);
+        assertEquals(1, pi.getBindPlanCache().getHitCount());
+        assertEquals("second", action.getBlah());
+        assertEquals("second", action.getName());
+
+        // another set of names is planned on its own
+        sameNames.put("foo", "15");
+        pi.setParameters(action, stack, sameNames);
+        assertEquals(1, pi.getBindPlanCache().getHitCount());
+        assertEquals(2, pi.getBindPlanCache().getMissCount());
+        assertEquals(15, action.getFoo());
+
+        // and so is another action class
+        stack.push(new TestBean());
+        pi.setParameters(new TestBean(), stack, params);
+        assertEquals(3, pi.getBindPlanCache().getMissCount());
+        assertEquals(3, pi.getBindPlanCache().size());
+    }
+
+    public void testBindPlansAreDroppedWhenPatternsChange() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor();
+        SimpleAction action = new SimpleAction();
+        OgnlValueStack stack = new OgnlValueStack();
+        stack.push(action);
+
+        Map params = new HashMap();
+        params.put("blah", "first");
+        params.put("name", "first");
+        pi.setParameters(action, stack, params);
+        assertEquals("first", action.getBlah());
+
+        pi.excludeParams.add(Pattern.compile("^blah$"));
+        pi.patternsChanged();
+        params.put("blah", "second");
+        params.put("name", "second");
+        pi.setParameters(action, stack, params);
+        assertEquals("first", action.getBlah());
+        assertEquals("second", action.getName());
+        assertEquals(0, pi.getBindPlanCache().getHitCount());
+        assertEquals(1, pi.getBindPlanCache().getMissCount());
+    }
+
+    public void testParameterNameAwareIsConsultedOnCachedPlans() throws Exception {
+        ParametersInterceptor pi = new ParametersInterceptor();
+        final Map actual = new HashMap();
+        OgnlValueStack stack = new OgnlValueStack() {
+            public void setValue(String expr, Object value) {
+                actual.put(expr, value);
+            }
+        };
+        final Set acceptedNames = new HashSet();
+        Object a = new ParameterNameAware() {
+            public boolean acceptableParameterName(String parameterName) {
+                return acceptedNames.contains(parameterName);
+            }
+        };
+        Map parameters = new HashMap();
+        parameters.put("fooKey", "fooValue");
+        parameters.put("barKey", "barValue");
+
+        acceptedNames.add("fooKey");
+        pi.setParameters(a, stack, parameters);
+        assertEquals(Collections.singletonMap("fooKey", "fooValue"), actual);
+
+        actual.clear();
+        acceptedNames.add("barKey");
+        pi.setParameters(a, stack, parameters);
+        assertEquals(1, pi.getBindPlanCache().getHitCount());
+        assertEquals(parameters, actual);
+    }
+
     private class NoParametersAction implements Action, NoParameters {
 
         public String execute() throws Exception {
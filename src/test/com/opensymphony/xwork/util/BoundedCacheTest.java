@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Unit test of {@link BoundedCache}.
+ *
+ * @version $Date$ $Id$
+ */
+public class BoundedCacheTest extends TestCase {
+
+    public void testGetAndPut() throws Exception {
+        BoundedCache cache = new BoundedCache(10);
+
+        assertNull(cache.get("a"));
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("1", cache.put("a", "2"));
+        assertEquals("2", cache.get("a"));
+        assertEquals(1, cache.size());
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    public void testPutIfAbsentKeepsExistingValue() throws Exception {
+        BoundedCache cache = new BoundedCache(10);
+
+        assertNull(cache.putIfAbsent("a", "1"));
+        assertEquals("1", cache.putIfAbsent("a", "2"));
+        assertEquals("1", cache.get("a"));
+    }
+
+    public void testEvictsBeyondMaxSize() throws Exception {
+        BoundedCache cache = new BoundedCache(3);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, new Integer(i));
+        }
+
+        assertEquals(3, cache.size());
+        assertEquals(97, cache.getEvictionCount());
+        assertEquals(new Integer(99), cache.get("key99"));
+        assertNull(cache.get("key0"));
+    }
+
+    public void testRecentlyReadEntryGetsSecondChance() throws Exception {
+        BoundedCache cache = new BoundedCache(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    public void testUnbounded() throws Exception {
+        BoundedCache cache = new BoundedCache(0);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, new Integer(i));
+        }
+
+        assertEquals(100, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.setMaxSize(10);
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.getEvictionCount());
+    }
+
+    public void testRemoveAndClear() throws Exception {
+        BoundedCache cache = new BoundedCache(10);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        assertEquals("1", cache.remove("a"));
+        assertNull(cache.remove("a"));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("b"));
+    }
+}
@@ -4,6 +4,9 @@ import com.opensymphony.xwork.XWorkTestCase;
 import ognl.OgnlRuntime;
 import ognl.PropertyAccessor;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Test accessing {@link com.opensymphony.xwork.util.CompoundRootAccessor} through
  * the new enchance feature of OGNL (2.7+)
@@ -33,4 +36,59 @@ public class CompoundRootAccessorTest extends XWorkTestCase {
 
     }
 
+    public void testStoredResolutionKeysMatchLookupKeys() throws Exception {
+        CompoundRoot root = new CompoundRoot();
+        root.push("a");
+        root.push(null);
+        root.push(new Integer(1));
+
+        CompoundRootAccessor.ResolutionKey key = new CompoundRootAccessor.ResolutionKey(root.getTypes(), root.getTypesHash(), "name");
+        CompoundRootAccessor.ResolutionKey stored = key.weakCopy();
+        assertEquals(key, stored);
+        assertEquals(stored, key);
+        assertEquals(key.hashCode(), stored.hashCode());
+
+        root.set(0, "b");
+        assertFalse(stored.equals(new CompoundRootAccessor.ResolutionKey(root.getTypes(), root.getTypesHash(), "name")));
+    }
+
+    public void testResolutionFollowsPushAndPop() throws Exception {
+        OgnlValueStack stack = new OgnlValueStack();
+        Foo foo = new Foo();
+        foo.setTitle("foo");
+        Bar bar = new Bar();
+        bar.setTitle("bar");
+
+        stack.push(foo);
+        assertEquals("foo", stack.findValue("title"));
+        stack.push(bar);
+        assertEquals("bar", stack.findValue("title"));
+        stack.pop();
+        assertEquals("foo", stack.findValue("title"));
+
+        stack.setValue("title", "changed");
+        assertEquals("changed", foo.getTitle());
+    }
+
+    public void testMapKeysAreCheckedOnEveryLookup() throws Exception {
+        OgnlValueStack stack = new OgnlValueStack();
+        Foo foo = new Foo();
+        foo.setTitle("foo");
+        Map map = new HashMap();
+
+        stack.push(foo);
+        stack.push(map);
+        assertEquals("foo", stack.findValue("title"));
+
+        map.put("title", "map");
+        assertEquals("map", stack.findValue("title"));
+
+        map.remove("title");
+        assertEquals("foo", stack.findValue("title"));
+
+        stack.setValue("title", "set");
+        assertEquals("set", map.get("title"));
+        assertEquals("foo", foo.getTitle());
+    }
+
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+
+/**
+ * Measures pushing and popping a {@link CompoundRoot}, and finding a property of its bottom object, as the stack
+ * grows. Not part of the test suite, run it with <tt>java</tt> and read the figures it prints.
+ *
+ * @version $Date$ $Id$
+ */
+public class CompoundRootBenchmark {
+
+    public static void main(String[] args) {
+        int[] depths = new int[]{5, 20, 50};
+        int rounds = 100000;
+
+        for (int i = 0; i < depths.length; i++) {
+            int depth = depths[i];
+            OgnlValueStack stack = new OgnlValueStack();
+            for (int j = 1; j < depth; j++) {
+                stack.push(new Object());
+            }
+            Foo foo = new Foo();
+            foo.setTitle("title");
+            stack.getRoot().add(stack.size(), foo);
+
+            // warm up
+            for (int round = 0; round < rounds; round++) {
+                stack.push(foo);
+                stack.pop();
+            }
+            stack.findValue("title");
+
+            long start = System.currentTimeMillis();
+            for (int round = 0; round < rounds; round++) {
+                stack.push(foo);
+                stack.pop();
+            }
+            long pushPop = System.currentTimeMillis() - start;
+
+            int lookups = rounds / 10;
+            start = System.currentTimeMillis();
+            for (int round = 0; round < lookups; round++) {
+                stack.findValue("title");
+            }
+            long findValue = System.currentTimeMillis() - start;
+
+            System.out.println("Stack of " + depth + ": " + ((pushPop * 1000000.0) / rounds) + " ns per push and pop, "
+                    + ((findValue * 1000000.0) / lookups) + " ns per findValue of the bottom object's property");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+import com.opensymphony.xwork.XWorkTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Unit test for {@link CompoundRoot}.
+ *
+ * @version $Date$ $Id$
+ */
+public class CompoundRootTest extends XWorkTestCase {
+
+    public void testListIsSeenTopFirst() {
+        CompoundRoot root = new CompoundRoot();
+        root.push("a");
+        root.push("b");
+        root.push("c");
+
+        assertEquals(Arrays.asList(new Object[]{"c", "b", "a"}), root);
+        assertEquals("c", root.peek());
+        assertEquals(2, root.indexOf("a"));
+        assertTrue(root.contains("b"));
+
+        Iterator iterator = root.iterator();
+        assertEquals("c", iterator.next());
+        assertEquals("b", iterator.next());
+        assertEquals("a", iterator.next());
+        assertFalse(iterator.hasNext());
+
+        assertEquals("c", root.pop());
+        assertEquals("b", root.pop());
+        assertEquals(1, root.size());
+
+        root.add(0, "top");
+        root.add(2, "bottom");
+        assertEquals(Arrays.asList(new Object[]{"top", "a", "bottom"}), root);
+        assertEquals("a", root.remove(1));
+        assertEquals("top", root.set(0, "new top"));
+        assertEquals(Arrays.asList(new Object[]{"new top", "bottom"}), root);
+
+        List list = new ArrayList();
+        list.add("x");
+        list.add("y");
+        CompoundRoot copy = new CompoundRoot(list);
+        assertEquals(list, copy);
+        assertEquals("x", copy.pop());
+
+        try {
+            new CompoundRoot().pop();
+            fail("Popping an empty stack should fail");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testCutStackSharesUntilModified() {
+        CompoundRoot root = new CompoundRoot();
+        for (int i = 0; i < 5; i++) {
+            root.push(new Integer(i));
+        }
+
+        CompoundRoot cut = root.cutStack(2);
+        assertEquals(Arrays.asList(new Object[]{new Integer(2), new Integer(1), new Integer(0)}), cut);
+
+        // changing the original does not change the cut stack
+        root.pop();
+        root.pop();
+        root.pop();
+        root.push("pushed");
+        root.set(1, "set");
+        assertEquals(Arrays.asList(new Object[]{"pushed", "set", new Integer(0)}), root);
+        assertEquals(Arrays.asList(new Object[]{new Integer(2), new Integer(1), new Integer(0)}), cut);
+
+        // nor the other way round
+        CompoundRoot copy = new CompoundRoot(root);
+        copy.push("copy");
+        copy.remove(3);
+        assertEquals(Arrays.asList(new Object[]{"copy", "pushed", "set"}), copy);
+        assertEquals(Arrays.asList(new Object[]{"pushed", "set", new Integer(0)}), root);
+
+        cut.push("cut");
+        assertEquals(4, cut.size());
+        assertEquals(3, root.size());
+        assertEquals(0, root.cutStack(3).size());
+    }
+
+    public void testTypesFollowChanges() {
+        CompoundRoot root = new CompoundRoot();
+        root.push("a");
+        root.push(new Integer(1));
+
+        assertTrue(Arrays.equals(new Class[]{Integer.class, String.class}, root.getTypes()));
+        assertSame(root.getTypes(), root.getTypes());
+
+        root.set(0, null);
+        assertTrue(Arrays.equals(new Class[]{null, String.class}, root.getTypes()));
+        root.pop();
+        assertTrue(Arrays.equals(new Class[]{String.class}, root.getTypes()));
+    }
+
+    public void testTypesHashFollowsChanges() {
+        CompoundRoot root = new CompoundRoot();
+        root.push("a");
+        root.push(new Integer(1));
+
+        CompoundRoot same = new CompoundRoot();
+        same.push("b");
+        same.push(new Integer(2));
+        assertEquals(root.getTypesHash(), same.getTypesHash());
+
+        int hash = root.getTypesHash();
+        root.set(0, "c");
+        assertTrue(hash != root.getTypesHash());
+        root.set(0, new Integer(3));
+        assertEquals(hash, root.getTypesHash());
+    }
+
+    public void testSerialization() throws Exception {
+        CompoundRoot root = new CompoundRoot();
+        root.push("a");
+        root.push("b");
+        CompoundRoot cut = root.cutStack(1);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(root);
+        out.writeObject(cut);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        CompoundRoot readRoot = (CompoundRoot) in.readObject();
+        CompoundRoot readCut = (CompoundRoot) in.readObject();
+
+        assertEquals(root, readRoot);
+        assertEquals(cut, readCut);
+        readRoot.push("c");
+        assertEquals("c", readRoot.peek());
+    }
+
+    public void testCloneIsIndependentOfTheOriginal() {
+        CompoundRoot root = new CompoundRoot();
+        root.push("a");
+        root.push("b");
+
+        CompoundRoot copy = (CompoundRoot) root.clone();
+        assertEquals(root, copy);
+
+        copy.push("c");
+        root.pop();
+        assertEquals(Arrays.asList(new Object[]{"c", "b", "a"}), copy);
+        assertEquals(Arrays.asList(new Object[]{"a"}), root);
+    }
+}
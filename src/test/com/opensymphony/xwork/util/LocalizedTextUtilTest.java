@@ -16,9 +16,17 @@ import com.opensymphony.xwork.util.Bar;
 
 import junit.framework.TestCase;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.ResourceBundle;
 
 
 /**
@@ -239,6 +247,143 @@ public class LocalizedTextUtilTest extends TestCase {
         assertFalse(usDate.equals(germanDate));
     }
     
+    public void testConcurrentFormattingOfSameMessage() throws Exception {
+        LocalizedTextUtil.addDefaultResourceBundle("com/opensymphony/xwork/util/LocalizedTextUtilTest");
+
+        final Date[] dates = new Date[]{new Date(0), new Date(1000L * 60 * 60 * 24 * 400)};
+        final String[] expected = new String[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            expected[i] = LocalizedTextUtil.findDefaultText("test.format.date", Locale.US, new Object[]{dates[i]});
+        }
+        assertFalse(expected[0].equals(expected[1]));
+
+        final List failures = Collections.synchronizedList(new ArrayList());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int which = t % dates.length;
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        String text = LocalizedTextUtil.findDefaultText("test.format.date", Locale.US, new Object[]{dates[which]});
+                        if (!expected[which].equals(text)) {
+                            failures.add(text);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+
+        assertEquals(Collections.EMPTY_LIST, failures);
+    }
+
+    public void testResolvedTextIsStillInterpolatedPerCall() throws Exception {
+        OgnlValueStack stack = new OgnlValueStack();
+
+        stack.push(Collections.singletonMap("name", "Santa"));
+        assertEquals("Hello Santa", LocalizedTextUtil.findText(LocalizedTextUtilTest.class, "greeting", Locale.US, null, null, stack));
+
+        stack.push(Collections.singletonMap("name", "Rudolph"));
+        assertEquals("Hello Rudolph", LocalizedTextUtil.findText(LocalizedTextUtilTest.class, "greeting", Locale.US, null, null, stack));
+    }
+
+    public void testResolvedIndexedText() throws Exception {
+        OgnlValueStack stack = new OgnlValueStack();
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("Phone number", LocalizedTextUtil.findText(LocalizedTextUtilTest.class, "phone[" + i + "]", Locale.US, null, null, stack));
+        }
+    }
+
+    public void testBundleLookupIsCachedUnlessReloading() throws Exception {
+        File dir = File.createTempFile("bundles", "");
+        dir.delete();
+        dir.mkdir();
+        File file = new File(dir, "ReloadTest.properties");
+
+        ClassLoader old = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{dir.toURL()}, old));
+        try {
+            assertNull(LocalizedTextUtil.findResourceBundle("MissingTest", Locale.US));
+            assertNull(LocalizedTextUtil.findResourceBundle("MissingTest", Locale.US));
+
+            writeProperty(file, "greeting", "hello");
+            assertEquals("hello", LocalizedTextUtil.findResourceBundle("ReloadTest", Locale.US).getString("greeting"));
+
+            writeProperty(file, "greeting", "bonjour");
+            assertEquals("hello", LocalizedTextUtil.findResourceBundle("ReloadTest", Locale.US).getString("greeting"));
+
+            LocalizedTextUtil.setReloadBundles(true);
+            LocalizedTextUtil.reloadCheckInterval = 0;
+            ResourceBundle bundle = LocalizedTextUtil.findResourceBundle("ReloadTest", Locale.US);
+            assertEquals("bonjour", bundle.getString("greeting"));
+
+            // reused as long as the file is unchanged
+            assertSame(bundle, LocalizedTextUtil.findResourceBundle("ReloadTest", Locale.US));
+
+            writeProperty(file, "greeting", "hallo");
+            file.setLastModified(file.lastModified() + 10000);
+            assertEquals("hallo", LocalizedTextUtil.findResourceBundle("ReloadTest", Locale.US).getString("greeting"));
+        } finally {
+            LocalizedTextUtil.reloadCheckInterval = 1000;
+            LocalizedTextUtil.setReloadBundles(false);
+            Thread.currentThread().setContextClassLoader(old);
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    public void testReloadingClassLoaderTracksResourcesOpenedThroughTheirUrl() throws Exception {
+        File dir = File.createTempFile("bundles", "");
+        dir.delete();
+        dir.mkdir();
+        File file = new File(dir, "ReloadTest.properties");
+        writeProperty(file, "greeting", "hello");
+
+        try {
+            LocalizedTextUtil.reloadCheckInterval = 0;
+            LocalizedTextUtil.ReloadingClassLoader loader = new LocalizedTextUtil.ReloadingClassLoader(new URLClassLoader(new URL[]{dir.toURL()}, null));
+
+            // the way ResourceBundle reads properties files on recent JDKs
+            URLConnection connection = loader.getResource("ReloadTest.properties").openConnection();
+            assertFalse(connection.getUseCaches());
+            connection.getInputStream().close();
+            assertNull(loader.getResource("ReloadTest_fr.properties"));
+            assertFalse(loader.hasChanged());
+
+            file.setLastModified(file.lastModified() + 10000);
+            assertTrue(loader.hasChanged());
+        } finally {
+            LocalizedTextUtil.reloadCheckInterval = 1000;
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    public void testCachedBundleKeysHoldTheClassLoaderWeakly() throws Exception {
+        ClassLoader loader = new URLClassLoader(new URL[0]);
+        LocalizedTextUtil.BundleKey key = new LocalizedTextUtil.BundleKey("ReloadTest", Locale.US, loader);
+        LocalizedTextUtil.BundleKey stored = key.weakCopy();
+
+        assertEquals(key, stored);
+        assertEquals(stored, key);
+        assertEquals(key.hashCode(), stored.hashCode());
+        assertSame(loader, stored.getClassLoader());
+        assertFalse(stored.classLoader instanceof ClassLoader);
+    }
+
+    private void writeProperty(File file, String key, String value) throws Exception {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write((key + "=" + value).getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+    }
+
     public void testXW377() {
         LocalizedTextUtil.addDefaultResourceBundle("com/opensymphony/xwork/util/LocalizedTextUtilTest");
 
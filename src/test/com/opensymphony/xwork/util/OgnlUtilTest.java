@@ -6,11 +6,14 @@ package com.opensymphony.xwork.util;
 
 import com.opensymphony.xwork.ActionContext;
 import com.opensymphony.xwork.XWorkTestCase;
+import com.opensymphony.xwork.XWorkConstants;
 import com.opensymphony.xwork.XworkException;
+import com.opensymphony.xwork.config.impl.DefaultConfiguration;
 import com.opensymphony.xwork.interceptor.ChainingInterceptor;
 import com.opensymphony.xwork.test.User;
 
 import ognl.*;
+import ognl.enhance.ExpressionAccessor;
 
 import java.lang.reflect.Method;
 import java.util.*;
@@ -547,6 +550,93 @@ public class OgnlUtilTest extends XWorkTestCase {
     	assertEquals("There is no read method for bar", beans.get("bar"));
     }
 
+    public void testCompileCachesParsedExpression() throws Exception {
+        Object first = OgnlUtil.compile("cached.expression.name");
+        Object second = OgnlUtil.compile("cached.expression.name");
+
+        assertSame(first, second);
+        assertTrue(OgnlUtil.getExpressionCache().getMaxSize() > 0);
+        assertTrue(OgnlUtil.getExpressionCache().getHitCount() > 0);
+    }
+
+    public void testExpressionCachesSizedFromLoadedConfiguration() throws Exception {
+        DefaultConfiguration configuration = new DefaultConfiguration();
+        try {
+            configuration.setParameter(XWorkConstants.XWORK_OGNL_EXPRESSION_CACHE_MAX_SIZE, "500");
+            OgnlUtil.configureExpressionCaches(configuration);
+            assertEquals(500, OgnlUtil.getExpressionCache().getMaxSize());
+            assertEquals(500, OgnlUtil.getCompiledAccessorCache().getMaxSize());
+        } finally {
+            OgnlUtil.configureExpressionCaches(new DefaultConfiguration());
+        }
+        assertEquals(OgnlUtil.DEFAULT_EXPRESSION_CACHE_MAX_SIZE, OgnlUtil.getExpressionCache().getMaxSize());
+    }
+
+    public void testCompiledAccessorIsCachedPerRootType() throws Exception {
+        Foo foo = new Foo();
+        foo.setTitle("blah");
+        Map context = Ognl.createDefaultContext(foo);
+
+        ExpressionAccessor accessor = OgnlUtil.getCompiledAccessor("title", context, foo);
+        assertNotNull(accessor);
+        assertEquals("blah", accessor.get((OgnlContext) context, foo));
+        assertSame(accessor, OgnlUtil.getCompiledAccessor("title", context, new Foo()));
+
+        Bar bar = new Bar();
+        bar.setTitle("bar");
+        ExpressionAccessor barAccessor = OgnlUtil.getCompiledAccessor("title", Ognl.createDefaultContext(bar), bar);
+        assertNotSame(accessor, barAccessor);
+    }
+
+    public void testExpressionNotCompilableIsRemembered() throws Exception {
+        Foo foo = new Foo();
+        Map context = Ognl.createDefaultContext(foo);
+        BoundedCache cache = OgnlUtil.getCompiledAccessorCache();
+
+        assertNull(OgnlUtil.getCompiledAccessor("title(", context, foo));
+        int size = cache.size();
+        long hits = cache.getHitCount();
+
+        assertNull(OgnlUtil.getCompiledAccessor("title(", context, foo));
+        assertEquals(size, cache.size());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    public void testExpressionNotCompilableIsRetriedOnceExpired() throws Exception {
+        Foo foo = new Foo();
+        Map context = Ognl.createDefaultContext(foo);
+        BoundedCache cache = OgnlUtil.getCompiledAccessorCache();
+
+        long interval = OgnlUtil.compileRetryInterval;
+        try {
+            OgnlUtil.compileRetryInterval = 0;
+            assertNull(OgnlUtil.getCompiledAccessor("title((", context, foo));
+            long misses = cache.getMissCount();
+            int size = cache.size();
+
+            // the failure has expired already, so compilation is attempted again and the failure replaced
+            assertNull(OgnlUtil.getCompiledAccessor("title((", context, foo));
+            assertEquals(size, cache.size());
+            assertEquals(misses, cache.getMissCount());
+        } finally {
+            OgnlUtil.compileRetryInterval = interval;
+        }
+    }
+
+    public void testCompiledAccessorKeyFollowsStackShape() throws Exception {
+        CompoundRoot root = new CompoundRoot();
+        root.push(new Foo());
+
+        OgnlUtil.CompiledExpressionKey key = new OgnlUtil.CompiledExpressionKey("title", root);
+        assertEquals(key, new OgnlUtil.CompiledExpressionKey("title", root));
+
+        root.push(new Bar());
+        assertFalse(key.equals(new OgnlUtil.CompiledExpressionKey("title", root)));
+        root.pop();
+        assertEquals(key, new OgnlUtil.CompiledExpressionKey("title", root));
+        assertFalse(key.equals(new OgnlUtil.CompiledExpressionKey("title", new Foo())));
+    }
+
     /**
 	 * XW-281
 	 */
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+import com.opensymphony.xwork.DefaultTextProvider;
+
+import ognl.Ognl;
+import ognl.OgnlContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+
+/**
+ * Compares creating an {@link OgnlValueStack} from its context template with creating its context through
+ * {@link Ognl#createDefaultContext}, as stacks used to be created. Not part of the test suite, run it with
+ * <tt>java</tt> and read the figures it prints.
+ *
+ * @version $Date$ $Id$
+ */
+public class OgnlValueStackBenchmark {
+
+    public static void main(String[] args) {
+        int stacks = 100000;
+
+        // warm up both ways of creating a stack
+        for (int i = 0; i < stacks; i++) {
+            createStackContextLegacy();
+            new OgnlValueStack();
+        }
+
+        long allocated = allocatedBytes();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < stacks; i++) {
+            createStackContextLegacy();
+        }
+        long legacyElapsed = System.currentTimeMillis() - start;
+        long legacyAllocated = allocatedBytes() - allocated;
+
+        allocated = allocatedBytes();
+        start = System.currentTimeMillis();
+        for (int i = 0; i < stacks; i++) {
+            new OgnlValueStack();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        long templateAllocated = allocatedBytes() - allocated;
+
+        System.out.println("Created " + stacks + " stacks in " + legacyElapsed + " ms using Ognl.createDefaultContext, "
+                + elapsed + " ms from the context template");
+        if (allocated >= 0) {
+            System.out.println("Allocated " + (legacyAllocated / stacks) + " bytes per stack using Ognl.createDefaultContext, "
+                    + (templateAllocated / stacks) + " bytes from the context template");
+        }
+    }
+
+    /**
+     * Creates a stack's root and context the way stacks used to be created.
+     */
+    private static Map createStackContextLegacy() {
+        CompoundRoot root = new CompoundRoot();
+        Map context = Ognl.createDefaultContext(root, OgnlValueStack.getAccessor(), XWorkConverter.getInstance());
+        context.put(OgnlValueStack.VALUE_STACK, root);
+        Ognl.setClassResolver(context, OgnlValueStack.getAccessor());
+        ((OgnlContext) context).setTraceEvaluations(false);
+        ((OgnlContext) context).setKeepLastEvaluation(false);
+        root.push(DefaultTextProvider.INSTANCE);
+        return context;
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far, or -1 if the JVM does not tell
+     */
+    private static long allocatedBytes() {
+        try {
+            Object threadMXBean = ManagementFactory.getThreadMXBean();
+            Class type = Class.forName("com.sun.management.ThreadMXBean");
+            Method method = type.getMethod("getThreadAllocatedBytes", new Class[]{long.class});
+            Object bytes = method.invoke(threadMXBean, new Object[]{new Long(Thread.currentThread().getId())});
+            return ((Long) bytes).longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.opensymphony.xwork.*;
 import com.opensymphony.xwork.test.TestBean2;
 import com.opensymphony.xwork.util.OgnlValueStack;
 
+import ognl.OgnlContext;
+
 import java.io.*;
 import java.math.BigDecimal;
 import java.util.HashMap;
@@ -627,6 +629,30 @@ public class OgnlValueStackTest extends XWorkTestCase {
         assertNotNull(OgnlValueStack.getAccessor());
     }
 
+    public void testContextIsCreatedFromTemplate() {
+        OgnlValueStack stack = new OgnlValueStack();
+        OgnlContext context = (OgnlContext) stack.getContext();
+
+        assertSame(stack, context.get(OgnlValueStack.VALUE_STACK));
+        assertSame(stack.getRoot(), context.getRoot());
+        assertSame(OgnlValueStack.getAccessor(), context.getClassResolver());
+        assertSame(XWorkConverter.getInstance(), context.getTypeConverter());
+        assertFalse(context.getTraceEvaluations());
+        assertFalse(context.getKeepLastEvaluation());
+        assertEquals(1, stack.size());
+        assertSame(DefaultTextProvider.INSTANCE, stack.peek());
+
+        XWorkConverter original = XWorkConverter.getInstance();
+        XWorkConverter converter = new XWorkConverter();
+        XWorkConverter.setInstance(converter);
+
+        try {
+            assertSame(converter, ((OgnlContext) new OgnlValueStack().getContext()).getTypeConverter());
+        } finally {
+            XWorkConverter.setInstance(original);
+        }
+    }
+
     public void testDefaultType() {
         OgnlValueStack stack = new OgnlValueStack();
         stack.setDefaultType(String.class);
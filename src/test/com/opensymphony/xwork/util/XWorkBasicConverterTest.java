@@ -4,9 +4,15 @@
  */
 package com.opensymphony.xwork.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+import com.opensymphony.xwork.ActionContext;
 import com.opensymphony.xwork.XworkException;
 
 import junit.framework.TestCase;
@@ -49,4 +55,109 @@ public class XWorkBasicConverterTest extends TestCase {
 		}
 		fail("XWorkException expected - conversion error occurred");
 	}
+
+	public void testDateConversionStaysStrict() {
+		XWorkBasicConverter basicConverter = new XWorkBasicConverter();
+		Map context = new HashMap();
+		context.put(ActionContext.LOCALE, Locale.US);
+
+		for (int i = 0; i < 2; i++) {
+			assertNotNull(basicConverter.convertValue(context, null, null, null, "12/31/06", Date.class));
+			try {
+				basicConverter.convertValue(context, null, null, null, "13/45/06", Date.class);
+				fail("XWorkException expected - strict parsing must reject the date");
+			}
+			catch(XworkException e) {
+				// expected
+			}
+		}
+	}
+
+	public void testConcurrentDateConversion() throws Exception {
+		final XWorkBasicConverter basicConverter = new XWorkBasicConverter();
+		final String[] values = new String[] {"1/2/06", "11/12/07", "3/4/05 10:20 AM"};
+		final Object[] expected = new Object[values.length];
+		final Map context = new HashMap();
+		context.put(ActionContext.LOCALE, Locale.US);
+
+		for (int i = 0; i < values.length; i++) {
+			expected[i] = basicConverter.convertValue(context, null, null, null, values[i], Date.class);
+		}
+
+		final List failures = Collections.synchronizedList(new ArrayList());
+		Thread[] threads = new Thread[6];
+		for (int t = 0; t < threads.length; t++) {
+			final int which = t % values.length;
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < 500; i++) {
+						Object date = basicConverter.convertValue(context, null, null, null, values[which], Date.class);
+						if (!expected[which].equals(date)) {
+							failures.add(date);
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+
+		assertEquals(Collections.EMPTY_LIST, failures);
+	}
+
+	public void testStringArrayToPrimitiveArrays() {
+		XWorkBasicConverter basicConverter = new XWorkBasicConverter();
+		Map context = new HashMap();
+		String[] values = new String[] {"1", " 22 ", "-333"};
+
+		int[] ints = (int[]) basicConverter.convertValue(context, null, null, null, values, int[].class);
+		assertEquals(3, ints.length);
+		assertEquals(22, ints[1]);
+		assertEquals(-333, ints[2]);
+
+		long[] longs = (long[]) basicConverter.convertValue(context, null, null, null, new String[] {"12345678901"}, long[].class);
+		assertEquals(12345678901L, longs[0]);
+
+		double[] doubles = (double[]) basicConverter.convertValue(context, null, null, null, new String[] {"1.5", "-2"}, double[].class);
+		assertEquals(1.5, doubles[0], 0);
+		assertEquals(-2, doubles[1], 0);
+
+		boolean[] booleans = (boolean[]) basicConverter.convertValue(context, null, null, null, new String[] {"true", "TRUE", "no", ""}, boolean[].class);
+		assertTrue(booleans[0]);
+		assertTrue(booleans[1]);
+		assertFalse(booleans[2]);
+		assertFalse(booleans[3]);
+	}
+
+	public void testStringArrayToPrimitiveArrayFailsOnBadElement() {
+		XWorkBasicConverter basicConverter = new XWorkBasicConverter();
+		String[][] invalid = new String[][] {{"1", "x"}, {"1", ""}, {"1", null}};
+
+		for (int i = 0; i < invalid.length; i++) {
+			try {
+				basicConverter.convertValue(new HashMap(), null, null, null, invalid[i], int[].class);
+				fail("conversion of " + invalid[i][1] + " should have failed");
+			}
+			catch(RuntimeException e) {
+				// expected
+			}
+		}
+	}
+
+	public void testStringToNumbersWithPlainDigits() {
+		XWorkBasicConverter basicConverter = new XWorkBasicConverter();
+		Map context = new HashMap();
+		context.put(ActionContext.LOCALE, Locale.GERMANY);
+
+		assertEquals(new Integer(42), basicConverter.convertValue(context, null, null, null, "42", int.class));
+		assertEquals(new Integer(42), basicConverter.convertValue(context, null, null, null, "42", Integer.class));
+		assertEquals(new Long(42), basicConverter.convertValue(context, null, null, null, new String[] {"42"}, Long.class));
+		assertEquals(new Double(42), basicConverter.convertValue(context, null, null, null, "42", Double.class));
+
+		// not plain digits, parsed according to the locale
+		assertEquals(new Double(1.5), basicConverter.convertValue(context, null, null, null, "1,5", Double.class));
+		assertEquals(new Integer(1000), basicConverter.convertValue(context, null, null, null, "1.000", Integer.class));
+	}
 }
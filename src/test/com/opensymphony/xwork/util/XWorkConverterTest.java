@@ -373,6 +373,26 @@ public class XWorkConverterTest extends TestCase {
         assertEquals("blah", bar.getTitle());
     }
 
+    public void testConversionPlansAreDroppedWhenConverterRegistered() {
+        assertFalse(converter.convertValue(context, null, null, null, "blah:123", Bar.class) instanceof Bar);
+        assertEquals(1, converter.conversionPlans.size());
+        converter.convertValue(context, null, null, null, "blah:456", Bar.class);
+        assertEquals(1, converter.conversionPlans.size());
+
+        converter.registerConverter(Cat.class.getName(), new FooBarConverter());
+        assertEquals(0, converter.conversionPlans.size());
+    }
+
+    public void testConversionPlansAreKeptWhenInheritedConverterFound() {
+        FooBarConverter parentConverter = new FooBarConverter();
+        converter.registerConverter(ConvertedParent.class.getName(), parentConverter);
+        converter.convertValue(context, null, null, null, "blah:123", Bar.class);
+        assertEquals(1, converter.conversionPlans.size());
+
+        assertSame(parentConverter, converter.lookup(ConvertedChild.class.getName()));
+        assertEquals(1, converter.conversionPlans.size());
+    }
+
     public void testStringToPrimitiveWrappers() {
         assertEquals(new Long(123), converter.convertValue(context, null, null, null, "123", Long.class));
         assertEquals(new Integer(123), converter.convertValue(context, null, null, null, "123", Integer.class));
@@ -590,6 +610,32 @@ public class XWorkConverterTest extends TestCase {
         assertEquals(321, cat.getFoo().getNumber());
     }
 
+    public void testConverterMappingsAreRegisteredOncePerClass() throws Exception {
+        final Object[] converters = new Object[8];
+        Thread[] threads = new Thread[converters.length];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    converters[index] = converter.getConverter(Foo.class, "bar");
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+
+        assertTrue(converters[0] instanceof FooBarConverter);
+        for (int i = 1; i < converters.length; i++) {
+            assertSame(converters[0], converters[i]);
+        }
+
+        assertNull(converter.getConverter(Bar1Impl.class, "foo"));
+        assertSame(XWorkConverter.NO_MAPPING, converter.mappings.get(Bar1Impl.class));
+    }
+
     public static class Foo1 {
         public Bar1 getBar() {
             return new Bar1Impl();
@@ -602,6 +648,12 @@ public class XWorkConverterTest extends TestCase {
     public static class Bar1Impl implements Bar1 {
     }
 
+    public static class ConvertedParent {
+    }
+
+    public static class ConvertedChild extends ConvertedParent {
+    }
+
     protected void setUp() throws Exception {
         converter = XWorkConverter.getInstance();
         ConfigurationManager.destroyConfiguration();
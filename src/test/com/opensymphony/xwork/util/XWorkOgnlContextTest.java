@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.util;
+
+import com.opensymphony.xwork.SimpleAction;
+import com.opensymphony.xwork.TestBean;
+import com.opensymphony.xwork.XWorkTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Unit test for {@link XWorkOgnlContext}.
+ *
+ * @version $Date$ $Id$
+ */
+public class XWorkOgnlContextTest extends XWorkTestCase {
+
+    public void testStateKeysAreReadAndWrittenThroughTheMap() {
+        Map context = new OgnlValueStack().getContext();
+        assertTrue(context instanceof XWorkOgnlContext);
+
+        context.put(InstantiatingNullHandler.CREATE_NULL_OBJECTS, Boolean.TRUE);
+        assertTrue(OgnlContextState.isCreatingNullObjects(context));
+        assertEquals(Boolean.TRUE, context.get(InstantiatingNullHandler.CREATE_NULL_OBJECTS));
+
+        OgnlContextState.setDenyMethodExecution(context, true);
+        assertEquals(Boolean.TRUE, context.get(XWorkMethodAccessor.DENY_METHOD_EXECUTION));
+        context.remove(XWorkMethodAccessor.DENY_METHOD_EXECUTION);
+        assertFalse(OgnlContextState.isDenyMethodExecution(context));
+        assertFalse(context.containsKey(XWorkMethodAccessor.DENY_METHOD_EXECUTION));
+
+        // a key equal to a state key but not the same instance
+        context.put(new String(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED), "name");
+        assertEquals("name", OgnlContextState.getLastBeanPropertyAccessed(context));
+
+        OgnlValueStack.link(context, TestBean.class, "name");
+        Object[] link = (Object[]) context.get("__link");
+        assertSame(TestBean.class, link[0]);
+        assertEquals("name", link[1]);
+
+        // state keys that are set are part of the entries, so copies keep them
+        assertTrue(context.keySet().contains(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED));
+        assertFalse(context.keySet().contains(XWorkMethodAccessor.DENY_METHOD_EXECUTION));
+        assertTrue(new HashMap(context).containsKey(InstantiatingNullHandler.CREATE_NULL_OBJECTS));
+    }
+
+    public void testCopiesKeepTheStateKeys() {
+        Map context = new OgnlValueStack().getContext();
+        OgnlContextState.setDenyMethodExecution(context, true);
+        OgnlContextState.setCreatingNullObjects(context, true);
+        OgnlContextState.setReportingConversionErrors(context, true);
+        context.put("plain", "value");
+
+        Map copy = new HashMap(context);
+        assertEquals(context.size(), copy.size());
+        assertEquals(Boolean.TRUE, copy.get(XWorkMethodAccessor.DENY_METHOD_EXECUTION));
+        assertEquals(Boolean.TRUE, copy.get(InstantiatingNullHandler.CREATE_NULL_OBJECTS));
+        assertEquals(Boolean.TRUE, copy.get(XWorkConverter.REPORT_CONVERSION_ERRORS));
+        assertEquals("value", copy.get("plain"));
+        assertEquals(copy, context);
+        assertEquals(copy.hashCode(), context.hashCode());
+
+        Map other = new OgnlValueStack().getContext();
+        other.putAll(context);
+        assertTrue(OgnlContextState.isDenyMethodExecution(other));
+        assertTrue(OgnlContextState.isCreatingNullObjects(other));
+        assertTrue(OgnlContextState.isReportingConversionErrors(other));
+
+        context.keySet().remove(XWorkMethodAccessor.DENY_METHOD_EXECUTION);
+        assertFalse(OgnlContextState.isDenyMethodExecution(context));
+        assertTrue(context.values().contains(Boolean.TRUE));
+    }
+
+    public void testCurrentPropertyPathIsBuiltPerSegment() {
+        Map context = new OgnlValueStack().getContext();
+
+        assertNull(OgnlContextState.getCurrentPropertyPath(context));
+        OgnlContextState.updateCurrentPropertyPath(context, "bean");
+        OgnlContextState.updateCurrentPropertyPath(context, "list");
+        OgnlContextState.updateCurrentPropertyPath(context, new Integer(1));
+        assertEquals("bean.list.1", OgnlContextState.getCurrentPropertyPath(context));
+        assertEquals("bean.list.1", context.get(OgnlContextState.CURRENT_PROPERTY_PATH));
+
+        context.put(OgnlContextState.CURRENT_PROPERTY_PATH, "other");
+        OgnlContextState.updateCurrentPropertyPath(context, "name");
+        assertEquals("other.name", OgnlContextState.getFullPropertyPath(context));
+
+        OgnlContextState.clear(context);
+        assertNull(OgnlContextState.getCurrentPropertyPath(context));
+        assertNull(OgnlContextState.getLastBeanClassAccessed(context));
+    }
+
+    public void testPropertyAccessUpdatesState() throws Exception {
+        OgnlValueStack stack = new OgnlValueStack();
+        SimpleAction action = new SimpleAction();
+        action.setBean(new TestBean());
+        stack.push(action);
+
+        OgnlUtil.getValue("bean.name", stack.getContext(), stack.getRoot());
+
+        Map context = stack.getContext();
+        assertSame(TestBean.class, OgnlContextState.getLastBeanClassAccessed(context));
+        assertEquals("name", OgnlContextState.getLastBeanPropertyAccessed(context));
+        assertEquals("bean.name", OgnlContextState.getCurrentPropertyPath(context));
+        assertSame(TestBean.class, OgnlContextState.getLinkClass(context));
+    }
+
+    public void testPlainMapsKeepStateInTheMap() {
+        Map context = new HashMap();
+
+        OgnlContextState.updateLastBeanAccessed(context, TestBean.class, "name");
+        OgnlContextState.setReportingConversionErrors(context, true);
+
+        assertSame(TestBean.class, context.get(XWorkConverter.LAST_BEAN_CLASS_ACCESSED));
+        assertEquals("name", context.get(OgnlContextState.CURRENT_PROPERTY_PATH));
+        assertSame(Boolean.TRUE, context.get(XWorkConverter.REPORT_CONVERSION_ERRORS));
+    }
+}
@@ -70,6 +70,12 @@ public class ConversionErrorFieldValidatorTest extends TestCase {
         assertEquals(defaultFooMessage, ((List) fieldErrors.get("foo")).get(0));
     }
 
+    public void testConversionErrorMessageIsNotKeptByTheValidator() throws ValidationException {
+        validator.validate(validationAware);
+
+        assertEquals("", validator.getDefaultMessage());
+    }
+
     protected void tearDown() throws Exception {
         ActionContext.setContext(oldContext);
     }
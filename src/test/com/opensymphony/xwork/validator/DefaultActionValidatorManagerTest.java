@@ -56,6 +56,18 @@ public class DefaultActionValidatorManagerTest extends XWorkTestCase {
         assertEquals(9, validatorList.size());
     }
 
+    public void testStatelessValidatorsAreBuiltOnce() {
+        List validatorList = actionValidatorManager.getValidators(SimpleAction.class, alias);
+        List validatorList2 = actionValidatorManager.getValidators(SimpleAction.class, alias);
+
+        assertNotSame(validatorList, validatorList2);
+        assertEquals(validatorList.size(), validatorList2.size());
+        for (int i = 0; i < validatorList.size(); i++) {
+            assertTrue(validatorList.get(i) instanceof StatelessValidator);
+            assertSame(validatorList.get(i), validatorList2.get(i));
+        }
+    }
+
     public void testBuildsValidatorsForAliasError() {
         boolean pass = false;
         try {
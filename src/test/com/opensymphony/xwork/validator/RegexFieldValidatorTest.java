@@ -10,6 +10,7 @@ import com.opensymphony.xwork.util.OgnlValueStack;
 import com.opensymphony.xwork.validator.validators.RegexFieldValidator;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Unit test for RegexFieldValidator.
@@ -64,6 +65,32 @@ public class RegexFieldValidatorTest extends XWorkTestCase {
         assertFalse(validator.getValidatorContext().hasActionMessages());
     }
 
+    public void testPatternsAreSharedPerExpressionAndFlags() throws Exception {
+        RegexFieldValidator other = new RegexFieldValidator();
+        other.setExpression("^Shared.*");
+
+        assertSame(RegexFieldValidator.getPattern("^Shared.*", 0), RegexFieldValidator.getPattern("^Shared.*", 0));
+        assertNotSame(RegexFieldValidator.getPattern("^Shared.*", 0),
+                RegexFieldValidator.getPattern("^Shared.*", Pattern.CASE_INSENSITIVE));
+
+        MyTestPerson testPerson = new MyTestPerson();
+        testPerson.setUsername("shared");
+
+        OgnlValueStack stack = new OgnlValueStack();
+        ActionContext.getContext().setValueStack(stack);
+
+        other.setValidatorContext(new GenericValidatorContext(new Object()));
+        other.setFieldName("username");
+        other.validate(testPerson);
+        assertTrue(other.getValidatorContext().hasFieldErrors());
+
+        // changing the flags is honoured by a validator that already matched
+        other.setCaseSensitive(false);
+        other.setValidatorContext(new GenericValidatorContext(new Object()));
+        other.validate(testPerson);
+        assertFalse(other.getValidatorContext().hasFieldErrors());
+    }
+
     public void testNoFieldName() throws Exception {
         MyTestPerson testPerson = new MyTestPerson();
         testPerson.setUsername("NoExpression");
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork.validator;
+
+import com.opensymphony.xwork.ActionContext;
+import com.opensymphony.xwork.ActionInvocation;
+import com.opensymphony.xwork.ValidationAwareSupport;
+import com.opensymphony.xwork.XWorkTestCase;
+import com.opensymphony.xwork.interceptor.PreResultListener;
+import com.opensymphony.xwork.mock.MockActionInvocation;
+import com.opensymphony.xwork.util.OgnlValueStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Unit test for {@link ValidationExecutor}.
+ *
+ * @version $Date$ $Id$
+ */
+public class ValidationExecutorTest extends XWorkTestCase {
+
+    public void testPreResultListenersAreRegisteredInTaskOrderOnCallingThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final List registeringThreads = new ArrayList();
+        MockActionInvocation invocation = new MockActionInvocation() {
+            public void addPreResultListener(PreResultListener listener) {
+                registeringThreads.add(Thread.currentThread());
+                super.addPreResultListener(listener);
+            }
+        };
+
+        OgnlValueStack stack = new OgnlValueStack();
+        ActionContext context = new ActionContext(stack.getContext());
+        context.setActionInvocation(invocation);
+        ActionContext.setContext(context);
+
+        final List notified = new ArrayList();
+        ValidationExecutor.Task[] tasks = new ValidationExecutor.Task[8];
+        for (int i = 0; i < tasks.length; i++) {
+            final String name = "task" + i;
+            tasks[i] = new ValidationExecutor.Task() {
+                public void validate(ValidatorContext validatorContext) {
+                    ActionInvocation taskInvocation = ActionContext.getContext().getActionInvocation();
+                    taskInvocation.addPreResultListener(new PreResultListener() {
+                        public void beforeResult(ActionInvocation invocation, String resultCode) {
+                            notified.add(name);
+                        }
+                    });
+                }
+            };
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            new ValidationExecutor(executorService).execute(tasks, new DelegatingValidatorContext(new ValidationAwareSupport()));
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertEquals(tasks.length, registeringThreads.size());
+        for (int i = 0; i < registeringThreads.size(); i++) {
+            assertSame(caller, registeringThreads.get(i));
+        }
+
+        invocation.invoke();
+        assertEquals(Arrays.asList(new Object[]{"task0", "task1", "task2", "task3", "task4", "task5", "task6", "task7"}), notified);
+    }
+
+    protected void tearDown() throws Exception {
+        ActionContext.setContext(null);
+        super.tearDown();
+    }
+}
@@ -10,6 +10,8 @@ import com.opensymphony.xwork.XWorkTestCase;
 import com.opensymphony.xwork.util.OgnlValueStack;
 
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 
 /**
@@ -28,12 +30,7 @@ public class VisitorFieldValidatorTest extends XWorkTestCase {
         origLocale = Locale.getDefault();
         Locale.setDefault(Locale.US);
 
-        action = new VisitorValidatorTestAction();
-
-        TestBean bean = action.getBean();
-        Calendar cal = new GregorianCalendar(1900, 01, 01);
-        bean.setBirth(cal.getTime());
-        bean.setCount(-1);
+        action = createAction();
 
         OgnlValueStack stack = new OgnlValueStack();
         ActionContext.setContext(new ActionContext(stack.getContext()));
@@ -135,12 +132,59 @@ public class VisitorFieldValidatorTest extends XWorkTestCase {
         assertTrue(fieldErrors.containsKey("context"));
     }
 
+    public void testParallelValidationAddsSameErrorsInSameOrder() throws Exception {
+        String[] contexts = {"validateArray", "validateList", "visitorValidation", "visitorValidationAlias", "beanMessageBundle"};
+        AbstractActionValidatorManager manager = (AbstractActionValidatorManager) ActionValidatorManagerFactory.getInstance();
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+
+        try {
+            for (int i = 0; i < contexts.length; i++) {
+                action = createAction();
+                action.getTestBeanArray()[0].setName("foo");
+                ((TestBean) action.getTestBeanList().get(0)).setName("foo");
+                validate(contexts[i]);
+
+                VisitorValidatorTestAction sequential = action;
+
+                manager.setExecutorService(executor);
+
+                try {
+                    action = createAction();
+                    action.getTestBeanArray()[0].setName("foo");
+                    ((TestBean) action.getTestBeanList().get(0)).setName("foo");
+                    validate(contexts[i]);
+                } finally {
+                    manager.setExecutorService(null);
+                }
+
+                assertTrue(action.hasFieldErrors());
+                assertEquals(contexts[i], sequential.getFieldErrors().toString(), action.getFieldErrors().toString());
+                assertEquals(contexts[i], sequential.getActionErrors(), action.getActionErrors());
+            }
+
+            assertTrue(executor.getTaskCount() > contexts.length);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     protected void tearDown() throws Exception {
         super.tearDown();
         ActionContext.setContext(null);
         Locale.setDefault(origLocale);
     }
 
+    private VisitorValidatorTestAction createAction() {
+        VisitorValidatorTestAction action = new VisitorValidatorTestAction();
+
+        TestBean bean = action.getBean();
+        Calendar cal = new GregorianCalendar(1900, 01, 01);
+        bean.setBirth(cal.getTime());
+        bean.setCount(-1);
+
+        return action;
+    }
+
     private void validate(String context) throws ValidationException {
         ActionContext actionContext = ActionContext.getContext();
         actionContext.setName(context);
@@ -7,7 +7,10 @@ package com.opensymphony.xwork.validator.validators;
 import com.opensymphony.xwork.ActionContext;
 import com.opensymphony.xwork.XWorkTestCase;
 import com.opensymphony.xwork.util.OgnlValueStack;
+import com.opensymphony.xwork.validator.GenericValidatorContext;
+import com.opensymphony.xwork.validator.StatelessValidator;
 import com.opensymphony.xwork.validator.ValidationException;
+import com.opensymphony.xwork.validator.ValidatorContext;
 import com.opensymphony.xwork.validator.validators.ValidatorSupport;
 
 
@@ -42,4 +45,57 @@ public class ValidatorSupportTest extends XWorkTestCase {
 		}
 	}
 	
+	public void testSubclassesAreNotSharedUnlessTheyOptIn() throws Exception {
+		ValidatorSupport validator = new ValidatorSupport() {
+			public void validate(Object object) throws ValidationException {
+			}
+		};
+		assertFalse(validator instanceof StatelessValidator);
+		assertTrue(new RequiredFieldValidator() instanceof StatelessValidator);
+	}
+	
+	public void testGetMessageDoesNotChangeTheDefaultMessage() throws Exception {
+		ValidatorSupport validator = new ValidatorSupport() {
+			public void validate(Object object) throws ValidationException {
+			}
+		};
+		validator.setDefaultMessage("");
+		validator.setMessageKey("some.key");
+		
+		assertEquals("some.key", validator.getMessage(new Object()));
+		assertEquals("", validator.getDefaultMessage());
+	}
+	
+	public void testValidatorContextIsKeptPerThreadAndCall() throws Exception {
+		final ValidatorContext[] seen = new ValidatorContext[3];
+		final ValidatorContext outer = new GenericValidatorContext(new Object());
+		final ValidatorContext inner = new GenericValidatorContext(new Object());
+		final ValidatorSupport validator = new ValidatorSupport() {
+			public void validate(Object object) throws ValidationException {
+				if (object == outer) {
+					seen[0] = getValidatorContext();
+					validate(inner, inner);
+					seen[1] = getValidatorContext();
+				}
+			}
+		};
+
+		validator.validate(outer, outer);
+		assertSame(outer, seen[0]);
+		assertSame(outer, seen[1]);
+		assertNull(validator.getValidatorContext());
+
+		validator.setValidatorContext(outer);
+		Thread other = new Thread() {
+			public void run() {
+				seen[2] = validator.getValidatorContext();
+			}
+		};
+		other.start();
+		other.join();
+		assertNull(seen[2]);
+		assertSame(outer, validator.getValidatorContext());
+		validator.setValidatorContext(null);
+	}
+	
 }